@@ -0,0 +1,90 @@
+package Bench;
+
+import Game.SensorSettings;
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the genetic operators, for every population size and net shape
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GeneticBenchmarks {
+
+    private static final int NUM_OUTPUTS = 4;
+    private static final double MUTATION_RATE = 0.5;
+    private static final double CROSS_RATE = 0.7;
+
+    @Param({"20", "1000"})
+    private int populationSize;
+
+    @Param({"1", "2"})
+    private int hiddenLayers;
+
+    @Param({"8", "32"})
+    private int neuronsPerLayer;
+
+    private GeneticAlgorithm genetics;
+    private Genome mum;
+    private Genome dad;
+
+    @Setup
+    public void setUp() {
+        Helper.setSeed(42);
+        int numInputs = SensorSettings.getNumInputs();
+        int chromoLength = new NeuralNet(numInputs, NUM_OUTPUTS, hiddenLayers, Math.max(neuronsPerLayer, numInputs))
+                .getNumberOfWeights();
+        genetics = new GeneticAlgorithm(populationSize, chromoLength, MUTATION_RATE, CROSS_RATE);
+        mum = new Genome(randomWeights(chromoLength), 0);
+        dad = new Genome(randomWeights(chromoLength), 0);
+    }
+
+    @Benchmark
+    public List<Genome> crossover() {
+        return genetics.crossover(mum, dad);
+    }
+
+    @Benchmark
+    public Genome mutate() {
+        return genetics.mutate(mum);
+    }
+
+    @Benchmark
+    public List<Genome> epochRoulette() {
+        return epoch(false);
+    }
+
+    @Benchmark
+    public List<Genome> epochTournament() {
+        return epoch(true);
+    }
+
+    /**
+     * Scores the current population with random fitness values and breeds the next one
+     */
+    private List<Genome> epoch(boolean tournament) {
+        List<Genome> population = genetics.getPopulation();
+        for (Genome genome : population) {
+            genome.setFitness(Helper.randomInt(0, 100));
+        }
+        return genetics.epoch(population, tournament);
+    }
+
+    private static double[] randomWeights(int length) {
+        double[] weights = new double[length];
+        for (int i = 0; i < length; i++) {
+            weights[i] = Helper.randomClamped();
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,99 @@
+package Bench;
+
+import Game.SensorSettings;
+import Game.SnakeSimulation;
+import Game.SnakeVecEnv;
+import Help.Helper;
+import Neural.Net.BatchNet;
+import Neural.Net.NeuralNet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the forward pass and of whole games, for every net shape. Run with the GC profiler by the jmh task of
+ * the build, its gc.alloc.rate.norm is the memory allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NetBenchmarks {
+
+    private static final int NUM_OUTPUTS = 4;
+    private static final int MAX_ACTIONS = 500;
+    private static final int BATCH_SIZE = 256;
+
+    @Param({"1", "2"})
+    private int hiddenLayers;
+
+    @Param({"8", "32"})
+    private int neuronsPerLayer;
+
+    private NeuralNet net;
+    private double[] weights;
+    private double[] in;
+    private double[] out;
+    private SnakeVecEnv games;
+
+    @Setup
+    public void setUp() {
+        Helper.setSeed(42);
+        int numInputs = SensorSettings.getNumInputs();
+        net = new NeuralNet(numInputs, NUM_OUTPUTS, hiddenLayers, Math.max(neuronsPerLayer, numInputs));
+        weights = new double[net.getNumberOfWeights()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Helper.randomClamped();
+        }
+        in = new double[numInputs];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = Helper.randomDouble();
+        }
+        out = new double[NUM_OUTPUTS];
+        net.putWeights(weights);
+
+        BatchNet batch = new BatchNet(net, BATCH_SIZE);
+        for (int b = 0; b < BATCH_SIZE; b++) {
+            batch.putWeights(b, weights);
+        }
+        games = new SnakeVecEnv(batch, MAX_ACTIONS, 0);
+        for (int b = 0; b < BATCH_SIZE; b++) {
+            games.reset(b, Helper.split());
+        }
+    }
+
+    @Benchmark
+    public double[] update() {
+        net.update(in, out);
+        return out;
+    }
+
+    @Benchmark
+    public NeuralNet putWeights() {
+        net.putWeights(weights);
+        return net;
+    }
+
+    /**
+     * A whole headless game of up to MAX_ACTIONS steps, as the board plays it without painting
+     */
+    @Benchmark
+    public int headlessGame() {
+        return new SnakeSimulation(net).play(MAX_ACTIONS);
+    }
+
+    /**
+     * One step of one game in a batch, ended games start over right away
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int vecEnvStep() {
+        int ended = games.step();
+        for (int i = 0; i < ended; i++) {
+            games.reset(games.getEnded(i), Helper.split());
+        }
+        return ended;
+    }
+}
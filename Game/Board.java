@@ -8,63 +8,70 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Swing view of a {@link SnakeSimulation}. All game logic lives in the simulation, the board only paints it and
+ * forwards key presses.
+ */
 public class Board extends JPanel implements ActionListener {
 
-    private final int B_WIDTH = 300;
-    private final int B_HEIGHT = 300;
-    private final int DOT_SIZE = 10;
-    private final int ALL_DOTS = 900;
-    private final int RAND_POS = 29;
+    private final int B_WIDTH = SnakeSimulation.B_WIDTH;
+    private final int B_HEIGHT = SnakeSimulation.B_HEIGHT;
     private final int DELAY = 140;
 
-    private final int x[] = new int[ALL_DOTS];
-    private final int y[] = new int[ALL_DOTS];
-
-    private int dots;
-    private int apple_x;
-    private int apple_y;
-
-    private boolean leftDirection = false;
-    private boolean rightDirection = true;
-    private boolean upDirection = false;
-    private boolean downDirection = false;
-    public boolean inGame = true;
-    private boolean isAi = false;
-
-    private String movingDirection = "right";
-
     private Timer timer;
     private Image ball;
     private Image apple;
     private Image head;
 
-    private NeuralNet brain;
-    private int fitness;
+    private SnakeSimulation game;
+    private Supplier<SnakeSimulation> games;
+    private int maxActions;
+    private int stallActions;
+    private int actions;
 
 
     public Board() {
-        addKeyListener(new TAdapter());
-        setBackground(Color.black);
-        setFocusable(true);
+        this(new SnakeSimulation());
 
-        setPreferredSize(new Dimension(B_WIDTH, B_HEIGHT));
-        loadImages();
-        initGame();
+        //Only a human player needs the board to drive the game, AI games are stepped by their caller
+        timer = new Timer(DELAY, this);
+        timer.start();
     }
 
     public Board(NeuralNet brain) {
-        this.isAi = true;
-        this.brain = brain;
+        this(new SnakeSimulation(brain));
+    }
+
+    /**
+     * Shows AI games one after another without blocking the caller: a timer steps each game on the event dispatch
+     * thread, and once a game is over the board starts the one the supplier gives then, e.g. a game of the fittest
+     * net trained so far.
+     *
+     * @param games        creates the next game to show, returns null while there is none yet
+     * @param delay        milliseconds between two steps
+     * @param maxActions   a game is over after this many steps
+     * @param stallActions a game is over after this many steps without an apple, 0 for no limit
+     */
+    public Board(Supplier<SnakeSimulation> games, int delay, int maxActions, int stallActions) {
+        this((SnakeSimulation) null);
+        this.games = games;
+        this.maxActions = maxActions;
+        this.stallActions = stallActions;
+
+        timer = new Timer(delay, this);
+        timer.start();
+    }
+
+    public Board(SnakeSimulation game) {
+        this.game = game;
         addKeyListener(new TAdapter());
         setBackground(Color.black);
         setFocusable(true);
 
         setPreferredSize(new Dimension(B_WIDTH, B_HEIGHT));
         loadImages();
-        initGame();
     }
 
     private void loadImages() {
@@ -79,21 +86,6 @@ public class Board extends JPanel implements ActionListener {
         head = iih.getImage();
     }
 
-    private void initGame() {
-
-        dots = 3;
-
-        for (int z = 0; z < dots; z++) {
-            x[z] = 50 - z * 10;
-            y[z] = 50;
-        }
-
-        locateApple();
-
-        timer = new Timer(DELAY, this);
-        timer.start();
-    }
-
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -102,15 +94,17 @@ public class Board extends JPanel implements ActionListener {
     }
 
     private void doDrawing(Graphics g) {
-        if (inGame) {
+        if (game == null) {
+            drawMessage(g, "Waiting for the first generation");
+        } else if (game.isInGame()) {
 
-            g.drawImage(apple, apple_x, apple_y, this);
+            g.drawImage(apple, game.getAppleX(), game.getAppleY(), this);
 
-            for (int z = 0; z < dots; z++) {
+            for (int z = 0; z < game.getDots(); z++) {
                 if (z == 0) {
-                    g.drawImage(head, x[z], y[z], this);
+                    g.drawImage(head, game.getX(z), game.getY(z), this);
                 } else {
-                    g.drawImage(ball, x[z], y[z], this);
+                    g.drawImage(ball, game.getX(z), game.getY(z), this);
                 }
             }
 
@@ -119,145 +113,12 @@ public class Board extends JPanel implements ActionListener {
 
         } else {
 
-            gameOver(g);
-        }
-    }
-
-    /**
-     * Inputs for Neural Net:
-     * 0 - 1 Field in moving direction
-     * 1 - 2 Fields in moving direction
-     * 2 - apples x coordinate
-     * 3 - apples y coordinate
-     * 4 - own x coordinate
-     * 5 - own y coordinate
-     */
-
-    private void makeMove() {
-        List<Double> inputs = new ArrayList<Double>();
-        List<Double> outputs;
-        int chosenOutput = 0;
-        double maxOutput = 0;
-//        int[] nextFieldStatus;
-
-//        nextFieldStatus = checkNextFields();
-
-        //Distance to border
-        inputs.add((double) checkBorderDistance(x, y) / ((double) B_WIDTH / (double) DOT_SIZE));
-
-        //Current moving direction
-        inputs.add(directionToDouble());
-
-//        inputs.add((double) nextFieldStatus[0]);
-//        inputs.add((double) nextFieldStatus[1]);
-
-        //Apple Position
-        inputs.add(((double) apple_x / (double) B_WIDTH));
-        inputs.add(((double) apple_y / (double) B_HEIGHT));
-
-        //Own Position
-        inputs.add(((double) x[0] / (double) B_WIDTH));
-        inputs.add(((double) y[0] / (double) B_HEIGHT));
-        outputs = brain.update(inputs);
-        for (int i = 0; i < 4; i++) {
-            if (outputs.get(i) > maxOutput) {
-                maxOutput = outputs.get(i);
-                chosenOutput = i;
-            }
+            drawMessage(g, "Game Over");
         }
-
-        switch (chosenOutput) {
-            case 0:
-                upDirection = true;
-                downDirection = false;
-                rightDirection = false;
-                leftDirection = false;
-                movingDirection = "up";
-                break;
-            case 1:
-                upDirection = false;
-                downDirection = true;
-                rightDirection = false;
-                leftDirection = false;
-                movingDirection = "down";
-                break;
-            case 2:
-                upDirection = false;
-                downDirection = false;
-                rightDirection = true;
-                leftDirection = false;
-                movingDirection = "right";
-                break;
-            case 3:
-                upDirection = false;
-                downDirection = false;
-                rightDirection = false;
-                leftDirection = true;
-                movingDirection = "left";
-                break;
-        }
-    }
-
-    private double directionToDouble() {
-        double direction = 0;
-
-        switch (movingDirection) {
-            case "right":
-                direction = -0.75;
-                break;
-            case "down":
-                direction = -0.25;
-                break;
-            case "left":
-                direction = 0.25;
-                break;
-            case "up":
-                direction = 0.75;
-                break;
-        }
-        return direction;
     }
 
-    private int[] checkNextFields() {
-        boolean collision = false;
-        int[] result = new int[2];
-        List<int[]> nextMove;
+    private void drawMessage(Graphics g, String msg) {
 
-        int[] tempX = x.clone();
-        int[] tempY = y.clone();
-
-        nextMove = move(tempX, tempY, movingDirection);
-        collision = checkCollisionAt(nextMove.get(0), nextMove.get(1));
-        result[0] = collision ? 0 : 1;
-
-        nextMove = move(nextMove.get(0), nextMove.get(1), movingDirection);
-        collision = checkCollisionAt(nextMove.get(0), nextMove.get(1));
-        result[1] = collision ? 0 : 1;
-
-        return result;
-    }
-
-    private int checkBorderDistance(int[] x, int[] y) {
-        boolean collision = false;
-        int result = 0;
-        List<int[]> nextMove;
-
-        int[] tempX = x.clone();
-        int[] tempY = y.clone();
-
-        nextMove = move(tempX, tempY, movingDirection);
-        collision = checkCollisionAt(nextMove.get(0), nextMove.get(1));
-        if (!collision) {
-            result++;
-            result += checkBorderDistance(tempX, tempY);
-        }
-
-        return result;
-    }
-
-    private void gameOver(Graphics g) {
-
-        String msg = "Game Over";
         Font small = new Font("Helvetica", Font.BOLD, 14);
         FontMetrics metr = getFontMetrics(small);
 
@@ -266,200 +127,75 @@ public class Board extends JPanel implements ActionListener {
         g.drawString(msg, (B_WIDTH - metr.stringWidth(msg)) / 2, B_HEIGHT / 2);
     }
 
-    private void checkApple() {
-
-        if ((x[0] == apple_x) && (y[0] == apple_y)) {
-
-            dots++;
-            if (isAi) {
-                fitness += 5;
-            }
-            locateApple();
-        }
-    }
-
-    private void move() {
-
-        for (int z = dots; z > 0; z--) {
-            x[z] = x[(z - 1)];
-            y[z] = y[(z - 1)];
-        }
-
-        if (leftDirection) {
-            x[0] -= DOT_SIZE;
-        }
-
-        if (rightDirection) {
-            x[0] += DOT_SIZE;
-        }
-
-        if (upDirection) {
-            y[0] -= DOT_SIZE;
-        }
-
-        if (downDirection) {
-            y[0] += DOT_SIZE;
-        }
-    }
-
-    private List<int[]> move(int[] x, int[] y, String direction) {
-
-        for (int z = dots; z > 0; z--) {
-            x[z] = x[(z - 1)];
-            y[z] = y[(z - 1)];
-        }
-
-        if (direction.equals("left")) {
-            x[0] -= DOT_SIZE;
-        }
-
-        if (direction.equals("right")) {
-            x[0] += DOT_SIZE;
-        }
-
-        if (direction.equals("up")) {
-            y[0] -= DOT_SIZE;
-        }
-
-        if (direction.equals("down")) {
-            y[0] += DOT_SIZE;
-        }
-        List<int[]> result = new ArrayList<int[]>();
-        result.add(x);
-        result.add(y);
-        return result;
-    }
-
-    private void checkCollision() {
-
-        for (int z = dots; z > 0; z--) {
-
-            if ((x[0] == x[z]) && (y[0] == y[z])) {
-                inGame = false;
-            }
-        }
-
-        if (y[0] >= B_HEIGHT) {
-            inGame = false;
-        }
-
-        if (y[0] <= 0) {
-            inGame = false;
-        }
-
-        if (x[0] >= B_WIDTH) {
-            inGame = false;
-        }
-
-        if (x[0] <= 0) {
-            inGame = false;
-        }
-
-        if (!inGame) {
-            timer.stop();
-        } else if (isAi) {
-            fitness++;
-        }
-    }
-
-    private boolean checkCollisionAt(int x[], int y[]) {
-        boolean result = false;
-        for (int z = dots; z > 0; z--) {
-
-            if ((x[0] == x[z]) && (y[0] == y[z])) {
-                result = true;
-            }
-        }
-
-        if (y[0] >= B_HEIGHT) {
-            result = true;
-        }
-
-        if (y[0] <= 0) {
-            result = true;
-        }
-
-        if (x[0] >= B_WIDTH) {
-            result = true;
-        }
-
-        if (x[0] <= 0) {
-            result = true;
-        }
-
-        return result;
-    }
-
-    private void locateApple() {
-
-        int r = (int) (Math.random() * RAND_POS);
-        apple_x = ((r * DOT_SIZE));
-
-        r = (int) (Math.random() * RAND_POS);
-        apple_y = ((r * DOT_SIZE));
-    }
-
     @Override
     public void actionPerformed(ActionEvent e) {
 
-        if (inGame) {
-
-            checkApple();
-            checkCollision();
-            move();
-            if (isAi) {
-                makeMove();
+        if (games != null && isOver()) {
+            SnakeSimulation next = games.get();
+            if (next != null) {
+                game = next;
+                actions = 0;
+            }
+        } else {
+            game.step();
+            actions++;
+            if (!game.isInGame() && timer != null && games == null) {
+                timer.stop();
             }
         }
 
         repaint();
     }
 
+    /**
+     * @return true if there is no game to show or the shown game is over
+     */
+    private boolean isOver() {
+        return game == null || !game.isInGame() || actions >= maxActions
+                || (stallActions > 0 && game.getHungryActions() >= stallActions);
+    }
+
     private class TAdapter extends KeyAdapter {
 
         @Override
         public void keyPressed(KeyEvent e) {
 
             int key = e.getKeyCode();
+            if (game == null) {
+                return;
+            }
 
-            if ((key == KeyEvent.VK_LEFT) && (!rightDirection)) {
-                leftDirection = true;
-                upDirection = false;
-                downDirection = false;
+            if (key == KeyEvent.VK_LEFT) {
+                game.steer("left");
             }
 
-            if ((key == KeyEvent.VK_RIGHT) && (!leftDirection)) {
-                rightDirection = true;
-                upDirection = false;
-                downDirection = false;
+            if (key == KeyEvent.VK_RIGHT) {
+                game.steer("right");
             }
 
-            if ((key == KeyEvent.VK_UP) && (!downDirection)) {
-                upDirection = true;
-                rightDirection = false;
-                leftDirection = false;
+            if (key == KeyEvent.VK_UP) {
+                game.steer("up");
             }
 
-            if ((key == KeyEvent.VK_DOWN) && (!upDirection)) {
-                downDirection = true;
-                rightDirection = false;
-                leftDirection = false;
+            if (key == KeyEvent.VK_DOWN) {
+                game.steer("down");
             }
         }
     }
 
-    public void putWeights(List<Double> weights) {
-        if (isAi) {
-            brain.putWeights(weights);
-        }
+    public void putWeights(double[] weights) {
+        game.putWeights(weights);
     }
 
     public boolean timerStopped() {
-        return !timer.isRunning();
+        return !game.isInGame();
     }
 
+    public SnakeSimulation getGame() {
+        return game;
+    }
 
     public int getFitness() {
-        return fitness;
+        return game.getFitness();
     }
-}
\ No newline at end of file
+}
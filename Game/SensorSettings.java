@@ -0,0 +1,22 @@
+package Game;
+
+public final class SensorSettings {
+    // If set to true, the snake sees along rays instead of the six original inputs
+    public static boolean RAYS = false;
+    // If set to true, rays are also cast diagonally, 8 directions instead of 4
+    public static boolean DIAGONAL_RAYS = true;
+
+    /**
+     * @return number of directions a ray is cast in
+     */
+    public static int getNumRays() {
+        return DIAGONAL_RAYS ? 8 : 4;
+    }
+
+    /**
+     * @return number of inputs the game feeds into the NN, three per ray or the six original ones
+     */
+    public static int getNumInputs() {
+        return RAYS ? 3 * getNumRays() : 6;
+    }
+}
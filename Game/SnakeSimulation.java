@@ -0,0 +1,572 @@
+package Game;
+
+import Help.Helper;
+import Neural.Net.NeuralNet;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Pure game logic of a snake game. Holds the grid state and knows how to move, collide, eat apples and count
+ * fitness, but never touches AWT or Swing, so it can be played headless. {@link Board} only renders from it.
+ */
+public class SnakeSimulation {
+
+    public static final int B_WIDTH = 300;
+    public static final int B_HEIGHT = 300;
+    public static final int DOT_SIZE = 10;
+    public static final int ALL_DOTS = 900;
+    public static final int RAND_POS = 29;
+
+    static final int COLUMNS = B_WIDTH / DOT_SIZE;
+    static final int ROWS = B_HEIGHT / DOT_SIZE;
+    // Steps of the rays in cells, up, down, right, left, up right, down right, down left, up left
+    static final int RAY_X[] = {0, 0, 1, -1, 1, 1, -1, -1};
+    static final int RAY_Y[] = {-1, 1, 0, 0, -1, 1, 1, -1};
+
+    // Ring buffer of the body, the head is at index head and dot z at head - z
+    private final int x[] = new int[ALL_DOTS];
+    private final int y[] = new int[ALL_DOTS];
+    private int head;
+    // Occupancy grid, the move on which the head last entered each cell. The snake covers the cells the head entered
+    // during the last dots moves, so whether a cell is free now or k moves ahead is a single lookup.
+    private final int entered[] = new int[COLUMNS * ROWS];
+    private int moves;
+    // Set by a move that ran into a wall or the body, the game ends on the next collision check
+    private boolean collided;
+    // Dots on every row, column and diagonal of the grid, one bit per cell, so a ray finds the nearest dot at once
+    private final long rows[] = new long[ROWS];
+    private final long columns[] = new long[COLUMNS];
+    private final long diagonals[] = new long[COLUMNS + ROWS - 1];
+    private final long antiDiagonals[] = new long[COLUMNS + ROWS - 1];
+
+    private int dots;
+    private int apple_x;
+    private int apple_y;
+
+    private boolean leftDirection = false;
+    private boolean rightDirection = true;
+    private boolean upDirection = false;
+    private boolean downDirection = false;
+    private boolean inGame = true;
+    private boolean isAi = false;
+
+    private String movingDirection = "right";
+
+    private NeuralNet brain;
+    private RandomGenerator random;
+    private final boolean rays = SensorSettings.RAYS;
+    private final int numRays = SensorSettings.getNumRays();
+    private double[] inputs = new double[SensorSettings.getNumInputs()];
+    private double[] outputs = new double[4];
+    private int fitness;
+    // Steps since the last apple
+    private int hungryActions;
+
+
+    public SnakeSimulation() {
+        this.random = Helper.split();
+        initGame();
+    }
+
+    public SnakeSimulation(NeuralNet brain) {
+        this(brain, Helper.split());
+    }
+
+    /**
+     * @param brain  net that steers the snake
+     * @param random generator for the apple positions, the same generator state gives the same game
+     */
+    public SnakeSimulation(NeuralNet brain, RandomGenerator random) {
+        this.isAi = true;
+        this.brain = brain;
+        this.random = random;
+        initGame();
+    }
+
+    private void initGame() {
+
+        dots = 3;
+
+        Arrays.fill(entered, -ALL_DOTS - 1);
+        for (int z = 0; z < dots; z++) {
+            x[index(z)] = 50 - z * 10;
+            y[index(z)] = 50;
+            entered[cell(x[index(z)], y[index(z)])] = -z;
+            if (rays) {
+                mark(x[index(z)], y[index(z)], true);
+            }
+        }
+
+        locateApple();
+    }
+
+    /**
+     * Plays the game until the snake dies or the maximum number of actions is reached
+     *
+     * @param maxActions maximum number of steps the snake may take
+     * @return fitness reached in this game
+     */
+    public int play(int maxActions) {
+        return play(maxActions, 0);
+    }
+
+    /**
+     * Plays the game until the snake dies, the maximum number of actions is reached or the snake went too long
+     * without eating, which ends snakes that only run in circles
+     *
+     * @param maxActions   maximum number of steps the snake may take
+     * @param stallActions maximum number of steps between two apples, 0 for no limit
+     * @return fitness reached in this game
+     */
+    public int play(int maxActions, int stallActions) {
+        int actionCounter = 0;
+        while (actionCounter < maxActions && inGame && (stallActions == 0 || hungryActions < stallActions)) {
+            step();
+            actionCounter++;
+        }
+        return fitness;
+    }
+
+    /**
+     * @param maxActions maximum number of steps of a game
+     * @return the highest fitness a game of that length can reach, one point per step and five per apple
+     */
+    public static int maxFitness(int maxActions) {
+        return 6 * maxActions;
+    }
+
+    /**
+     * Advances the game by one step
+     */
+    public void step() {
+
+        if (inGame) {
+
+            hungryActions++;
+            checkApple();
+            checkCollision();
+            move();
+            if (isAi) {
+                makeMove();
+            }
+        }
+    }
+
+    /**
+     * Inputs for Neural Net without ray sensors:
+     * 0 - 1 Field in moving direction
+     * 1 - 2 Fields in moving direction
+     * 2 - apples x coordinate
+     * 3 - apples y coordinate
+     * 4 - own x coordinate
+     * 5 - own y coordinate
+     */
+
+    private void makeMove() {
+        int chosenOutput = 0;
+        double maxOutput = 0;
+//        int[] nextFieldStatus;
+
+//        nextFieldStatus = checkNextFields();
+
+        if (rays) {
+            castRays();
+        } else {
+            classicInputs();
+        }
+        brain.update(inputs, outputs);
+        for (int i = 0; i < 4; i++) {
+            if (outputs[i] > maxOutput) {
+                maxOutput = outputs[i];
+                chosenOutput = i;
+            }
+        }
+
+        switch (chosenOutput) {
+            case 0:
+                upDirection = true;
+                downDirection = false;
+                rightDirection = false;
+                leftDirection = false;
+                movingDirection = "up";
+                break;
+            case 1:
+                upDirection = false;
+                downDirection = true;
+                rightDirection = false;
+                leftDirection = false;
+                movingDirection = "down";
+                break;
+            case 2:
+                upDirection = false;
+                downDirection = false;
+                rightDirection = true;
+                leftDirection = false;
+                movingDirection = "right";
+                break;
+            case 3:
+                upDirection = false;
+                downDirection = false;
+                rightDirection = false;
+                leftDirection = true;
+                movingDirection = "left";
+                break;
+        }
+    }
+
+    private void classicInputs() {
+        //Distance to border
+        inputs[0] = (double) checkBorderDistance() / ((double) B_WIDTH / (double) DOT_SIZE);
+
+        //Current moving direction
+        inputs[1] = directionToDouble();
+
+        //Apple Position
+        inputs[2] = (double) apple_x / (double) B_WIDTH;
+        inputs[3] = (double) apple_y / (double) B_HEIGHT;
+
+        //Own Position
+        inputs[4] = (double) x[head] / (double) B_WIDTH;
+        inputs[5] = (double) y[head] / (double) B_HEIGHT;
+    }
+
+    /**
+     * Ray inputs, for every direction: 1 / distance to the wall, 1 / distance to the nearest dot and 1 / distance to
+     * the apple, 0 if the ray hits the wall first. Directions are up, down, right, left, then up right, down right,
+     * down left and up left.
+     */
+    private void castRays() {
+        if (isWall(x[head], y[head])) {
+            //Only after the snake died, nothing to see
+            Arrays.fill(inputs, 0);
+            return;
+        }
+
+        int column = x[head] / DOT_SIZE;
+        int row = y[head] / DOT_SIZE;
+        int appleColumn = apple_x / DOT_SIZE;
+        int appleRow = apple_y / DOT_SIZE;
+
+        for (int ray = 0; ray < numRays; ray++) {
+            int dx = RAY_X[ray];
+            int dy = RAY_Y[ray];
+
+            int wall = Integer.MAX_VALUE;
+            if (dx != 0) {
+                wall = dx > 0 ? COLUMNS - column : column;
+            }
+            if (dy != 0) {
+                wall = Math.min(wall, dy > 0 ? ROWS - row : row);
+            }
+
+            int body = dotDistance(ray, column, row);
+
+            int apple = dx != 0 ? (appleColumn - column) * dx : (appleRow - row) * dy;
+            if (apple <= 0 || column + apple * dx != appleColumn || row + apple * dy != appleRow) {
+                apple = Integer.MAX_VALUE;
+            }
+
+            inputs[3 * ray] = 1.0 / wall;
+            inputs[3 * ray + 1] = body < wall ? 1.0 / body : 0;
+            inputs[3 * ray + 2] = apple < wall ? 1.0 / apple : 0;
+        }
+    }
+
+    /**
+     * @return number of steps along the ray to the nearest dot, or Integer.MAX_VALUE if there is none
+     */
+    private int dotDistance(int ray, int column, int row) {
+        switch (ray) {
+            case 0:
+                return nearest(columns[column], row, false);
+            case 1:
+                return nearest(columns[column], row, true);
+            case 2:
+                return nearest(rows[row], column, true);
+            case 3:
+                return nearest(rows[row], column, false);
+            case 4:
+                return nearest(antiDiagonals[column + row], column, true);
+            case 5:
+                return nearest(diagonals[column - row + ROWS - 1], column, true);
+            case 6:
+                return nearest(antiDiagonals[column + row], column, false);
+            default:
+                return nearest(diagonals[column - row + ROWS - 1], column, false);
+        }
+    }
+
+    static int nearest(long line, int position, boolean ascending) {
+        if (ascending) {
+            long ahead = line & (-2L << position);
+            return ahead == 0 ? Integer.MAX_VALUE : Long.numberOfTrailingZeros(ahead) - position;
+        }
+        long ahead = line & ((1L << position) - 1);
+        return ahead == 0 ? Integer.MAX_VALUE : position - (63 - Long.numberOfLeadingZeros(ahead));
+    }
+
+    /**
+     * Adds or removes a dot in the lines of the ray sensors
+     */
+    private void mark(int x, int y, boolean occupied) {
+        if (x < 0 || x >= B_WIDTH || y < 0 || y >= B_HEIGHT) {
+            return;
+        }
+        int column = x / DOT_SIZE;
+        int row = y / DOT_SIZE;
+        long bit = 1L << column;
+
+        if (occupied) {
+            rows[row] |= bit;
+            columns[column] |= 1L << row;
+            diagonals[column - row + ROWS - 1] |= bit;
+            antiDiagonals[column + row] |= bit;
+        } else {
+            rows[row] &= ~bit;
+            columns[column] &= ~(1L << row);
+            diagonals[column - row + ROWS - 1] &= ~bit;
+            antiDiagonals[column + row] &= ~bit;
+        }
+    }
+
+    /**
+     * Changes the moving direction like a player would, reversing into the own body is ignored
+     *
+     * @param direction one of "up", "down", "left" or "right"
+     */
+    public void steer(String direction) {
+        switch (direction) {
+            case "left":
+                if (!rightDirection) {
+                    leftDirection = true;
+                    upDirection = false;
+                    downDirection = false;
+                    movingDirection = direction;
+                }
+                break;
+            case "right":
+                if (!leftDirection) {
+                    rightDirection = true;
+                    upDirection = false;
+                    downDirection = false;
+                    movingDirection = direction;
+                }
+                break;
+            case "up":
+                if (!downDirection) {
+                    upDirection = true;
+                    rightDirection = false;
+                    leftDirection = false;
+                    movingDirection = direction;
+                }
+                break;
+            case "down":
+                if (!upDirection) {
+                    downDirection = true;
+                    rightDirection = false;
+                    leftDirection = false;
+                    movingDirection = direction;
+                }
+                break;
+        }
+    }
+
+    private double directionToDouble() {
+        double direction = 0;
+
+        switch (movingDirection) {
+            case "right":
+                direction = -0.75;
+                break;
+            case "down":
+                direction = -0.25;
+                break;
+            case "left":
+                direction = 0.25;
+                break;
+            case "up":
+                direction = 0.75;
+                break;
+        }
+        return direction;
+    }
+
+    private int[] checkNextFields() {
+        int[] result = new int[2];
+
+        result[0] = isBlockedAhead(1) ? 0 : 1;
+        result[1] = isBlockedAhead(2) ? 0 : 1;
+
+        return result;
+    }
+
+    private int checkBorderDistance() {
+        int result = 0;
+        while (!isBlockedAhead(result + 1)) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * @param steps number of moves straight ahead in the moving direction
+     * @return true if the head would hit a wall or a dot that is still there after that many moves
+     */
+    private boolean isBlockedAhead(int steps) {
+        int nextX = x[head];
+        int nextY = y[head];
+
+        switch (movingDirection) {
+            case "left":
+                nextX -= steps * DOT_SIZE;
+                break;
+            case "right":
+                nextX += steps * DOT_SIZE;
+                break;
+            case "up":
+                nextY -= steps * DOT_SIZE;
+                break;
+            case "down":
+                nextY += steps * DOT_SIZE;
+                break;
+        }
+
+        if (isWall(nextX, nextY)) {
+            return true;
+        }
+        //The dot that entered the cell age moves ago is gone after the tail moved past it
+        int age = moves - entered[cell(nextX, nextY)];
+        return age >= 1 && age <= dots - steps;
+    }
+
+    private void checkApple() {
+
+        if ((x[head] == apple_x) && (y[head] == apple_y)) {
+
+            dots++;
+            hungryActions = 0;
+            if (rays) {
+                //The tail grows back into the cell it just left
+                mark(x[index(dots - 1)], y[index(dots - 1)], true);
+            }
+            if (isAi) {
+                fitness += 5;
+            }
+            locateApple();
+        }
+    }
+
+    private void move() {
+        int nextX = x[head];
+        int nextY = y[head];
+
+        if (leftDirection) {
+            nextX -= DOT_SIZE;
+        }
+
+        if (rightDirection) {
+            nextX += DOT_SIZE;
+        }
+
+        if (upDirection) {
+            nextY -= DOT_SIZE;
+        }
+
+        if (downDirection) {
+            nextY += DOT_SIZE;
+        }
+
+        //Before this move the snake covered the cells entered during the last dots moves, including the tail's cell
+        moves++;
+        collided = isWall(nextX, nextY) || moves - entered[cell(nextX, nextY)] <= dots;
+
+        if (rays) {
+            mark(x[index(dots - 1)], y[index(dots - 1)], false);
+            mark(nextX, nextY, true);
+        }
+
+        head = index(-1);
+        x[head] = nextX;
+        y[head] = nextY;
+        if (!isWall(nextX, nextY)) {
+            entered[cell(nextX, nextY)] = moves;
+        }
+    }
+
+    private void checkCollision() {
+
+        if (collided) {
+            inGame = false;
+        }
+
+        if (inGame && isAi) {
+            fitness++;
+        }
+    }
+
+    static boolean isWall(int x, int y) {
+        return y >= B_HEIGHT || y <= 0 || x >= B_WIDTH || x <= 0;
+    }
+
+    static int cell(int x, int y) {
+        return (y / DOT_SIZE) * COLUMNS + x / DOT_SIZE;
+    }
+
+    /**
+     * @return position of a dot in the ring buffer
+     */
+    private int index(int dot) {
+        return Math.floorMod(head - dot, ALL_DOTS);
+    }
+
+    private void locateApple() {
+
+        int r = random.nextInt(RAND_POS);
+        apple_x = ((r * DOT_SIZE));
+
+        r = random.nextInt(RAND_POS);
+        apple_y = ((r * DOT_SIZE));
+    }
+
+    public void putWeights(double[] weights) {
+        if (isAi) {
+            brain.putWeights(weights);
+        }
+    }
+
+    public boolean isInGame() {
+        return inGame;
+    }
+
+    public int getDots() {
+        return dots;
+    }
+
+    public int getX(int dot) {
+        return x[index(dot)];
+    }
+
+    public int getY(int dot) {
+        return y[index(dot)];
+    }
+
+    public int getAppleX() {
+        return apple_x;
+    }
+
+    public int getAppleY() {
+        return apple_y;
+    }
+
+    public int getFitness() {
+        return fitness;
+    }
+
+    /**
+     * @return number of steps since the snake last ate an apple
+     */
+    public int getHungryActions() {
+        return hungryActions;
+    }
+}
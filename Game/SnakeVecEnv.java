@@ -0,0 +1,399 @@
+package Game;
+
+import Neural.Net.BatchNet;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import static Game.SnakeSimulation.*;
+
+/**
+ * Many AI snake games stepped together, one game per net of a {@link BatchNet}.
+ * <p>
+ * The state of all games is kept as a struct of arrays, one primitive array per field with one entry or one block of
+ * entries per game, so stepping all games walks through a few contiguous arrays. Every step writes the inputs of all
+ * games straight into the input buffer of the batch, and one update of the batch steers all snakes.
+ * <p>
+ * A game that ends stops until it is {@link #reset(int, RandomGenerator) reset}, which starts a new game in place,
+ * usually with the next genome loaded into its net. Each game plays exactly like a {@link SnakeSimulation} with the
+ * same weights and generator.
+ */
+public class SnakeVecEnv {
+
+    private static final int CELLS = COLUMNS * ROWS;
+    private static final int LINES = COLUMNS + ROWS - 1;
+    private static final int RIGHT = 2;
+    // Per direction in output order up, down, right, left: the step of the head and the original direction input
+    private static final int MOVE_X[] = {0, 0, DOT_SIZE, -DOT_SIZE};
+    private static final int MOVE_Y[] = {-DOT_SIZE, DOT_SIZE, 0, 0};
+    private static final double DIRECTION_INPUT[] = {0.75, -0.25, -0.75, 0.25};
+
+    private final BatchNet nets;
+    private final int size;
+    private final int maxActions;
+    private final int stallActions;
+    private final boolean rays = SensorSettings.RAYS;
+    private final int numRays = SensorSettings.getNumRays();
+
+    // Ring buffers of the bodies, game g uses the ALL_DOTS entries from g * ALL_DOTS on
+    private final int x[];
+    private final int y[];
+    private final int head[];
+    private final int dots[];
+    private final int direction[];
+    private final int appleX[];
+    private final int appleY[];
+    // Occupancy grids like SnakeSimulation, game g uses the CELLS entries from g * CELLS on
+    private final int entered[];
+    private final int moves[];
+    private final boolean collided[];
+    // Line masks of the ray sensors, ROWS, COLUMNS or LINES entries per game
+    private final long rows[];
+    private final long columns[];
+    private final long diagonals[];
+    private final long antiDiagonals[];
+
+    private final int fitness[];
+    private final int actions[];
+    private final int hungryActions[];
+    private final boolean running[];
+    private final RandomGenerator random[];
+
+    // Games that ended during the last step
+    private final int ended[];
+    private int numEnded;
+
+    /**
+     * Creates the environment with all games stopped
+     *
+     * @param nets         one net per game, its inputs must match the sensors in SensorSettings
+     * @param maxActions   maximum number of steps of a game
+     * @param stallActions maximum number of steps between two apples, 0 for no limit
+     */
+    public SnakeVecEnv(BatchNet nets, int maxActions, int stallActions) {
+        if (nets.getNumInputs() != SensorSettings.getNumInputs()) {
+            throw new IllegalArgumentException("Nets take " + nets.getNumInputs() + " inputs, the sensors give " + SensorSettings.getNumInputs());
+        }
+        this.nets = nets;
+        this.size = nets.getBatchSize();
+        this.maxActions = maxActions;
+        this.stallActions = stallActions;
+
+        x = new int[size * ALL_DOTS];
+        y = new int[size * ALL_DOTS];
+        head = new int[size];
+        dots = new int[size];
+        direction = new int[size];
+        appleX = new int[size];
+        appleY = new int[size];
+        entered = new int[size * CELLS];
+        moves = new int[size];
+        collided = new boolean[size];
+        rows = new long[rays ? size * ROWS : 0];
+        columns = new long[rays ? size * COLUMNS : 0];
+        diagonals = new long[rays ? size * LINES : 0];
+        antiDiagonals = new long[rays ? size * LINES : 0];
+        fitness = new int[size];
+        actions = new int[size];
+        hungryActions = new int[size];
+        running = new boolean[size];
+        random = new RandomGenerator[size];
+        ended = new int[size];
+    }
+
+    /**
+     * Starts a new game in place of the old one
+     *
+     * @param game   index of the game, the same as its net in the batch
+     * @param random generator for the apple positions, the same generator state gives the same game
+     */
+    public void reset(int game, RandomGenerator random) {
+        head[game] = 0;
+        dots[game] = 3;
+        direction[game] = RIGHT;
+        moves[game] = 0;
+        collided[game] = false;
+        fitness[game] = 0;
+        actions[game] = 0;
+        hungryActions[game] = 0;
+        running[game] = true;
+        this.random[game] = random;
+
+        Arrays.fill(entered, game * CELLS, (game + 1) * CELLS, -ALL_DOTS - 1);
+        if (rays) {
+            Arrays.fill(rows, game * ROWS, (game + 1) * ROWS, 0);
+            Arrays.fill(columns, game * COLUMNS, (game + 1) * COLUMNS, 0);
+            Arrays.fill(diagonals, game * LINES, (game + 1) * LINES, 0);
+            Arrays.fill(antiDiagonals, game * LINES, (game + 1) * LINES, 0);
+        }
+
+        for (int z = 0; z < dots[game]; z++) {
+            x[index(game, z)] = 50 - z * 10;
+            y[index(game, z)] = 50;
+            entered[game * CELLS + cell(x[index(game, z)], y[index(game, z)])] = -z;
+            if (rays) {
+                mark(game, x[index(game, z)], y[index(game, z)], true);
+            }
+        }
+        //A new SnakeSimulation has no dot behind its tail yet
+        x[index(game, dots[game])] = 0;
+        y[index(game, dots[game])] = 0;
+
+        locateApple(game);
+    }
+
+    /**
+     * Advances every running game by one step and steers them all with one update of the batch
+     *
+     * @return number of games that ended in this step, see {@link #getEnded(int)}
+     */
+    public int step() {
+        double[] inputs = nets.getInputs();
+        boolean steering = false;
+        numEnded = 0;
+
+        for (int game = 0; game < size; game++) {
+            if (!running[game]) {
+                continue;
+            }
+
+            hungryActions[game]++;
+            checkApple(game);
+            if (collided[game]) {
+                end(game);
+                continue;
+            }
+            fitness[game]++;
+
+            move(game);
+            actions[game]++;
+            if (actions[game] >= maxActions || (stallActions != 0 && hungryActions[game] >= stallActions)) {
+                end(game);
+                continue;
+            }
+
+            if (rays) {
+                castRays(game, inputs);
+            } else {
+                classicInputs(game, inputs);
+            }
+            steering = true;
+        }
+
+        if (steering) {
+            nets.update();
+            steer(nets.getOutputs());
+        }
+        return numEnded;
+    }
+
+    private void end(int game) {
+        running[game] = false;
+        ended[numEnded++] = game;
+    }
+
+    private void steer(double[] outputs) {
+        for (int game = 0; game < size; game++) {
+            if (!running[game]) {
+                continue;
+            }
+
+            int chosenOutput = 0;
+            double maxOutput = 0;
+            for (int i = 0; i < 4; i++) {
+                if (outputs[i * size + game] > maxOutput) {
+                    maxOutput = outputs[i * size + game];
+                    chosenOutput = i;
+                }
+            }
+            direction[game] = chosenOutput;
+        }
+    }
+
+    private void checkApple(int game) {
+        int h = index(game, 0);
+
+        if (x[h] == appleX[game] && y[h] == appleY[game]) {
+            dots[game]++;
+            hungryActions[game] = 0;
+            if (rays) {
+                mark(game, x[index(game, dots[game] - 1)], y[index(game, dots[game] - 1)], true);
+            }
+            fitness[game] += 5;
+            locateApple(game);
+        }
+    }
+
+    private void move(int game) {
+        int h = index(game, 0);
+        int nextX = x[h] + MOVE_X[direction[game]];
+        int nextY = y[h] + MOVE_Y[direction[game]];
+
+        moves[game]++;
+        collided[game] = isWall(nextX, nextY) || moves[game] - entered[game * CELLS + cell(nextX, nextY)] <= dots[game];
+
+        if (rays) {
+            mark(game, x[index(game, dots[game] - 1)], y[index(game, dots[game] - 1)], false);
+            mark(game, nextX, nextY, true);
+        }
+
+        head[game] = (head[game] + 1) % ALL_DOTS;
+        h = index(game, 0);
+        x[h] = nextX;
+        y[h] = nextY;
+        if (!isWall(nextX, nextY)) {
+            entered[game * CELLS + cell(nextX, nextY)] = moves[game];
+        }
+    }
+
+    private void locateApple(int game) {
+        appleX[game] = random[game].nextInt(RAND_POS) * DOT_SIZE;
+        appleY[game] = random[game].nextInt(RAND_POS) * DOT_SIZE;
+    }
+
+    /**
+     * The six original inputs of SnakeSimulation
+     */
+    private void classicInputs(int game, double[] inputs) {
+        int h = index(game, 0);
+        int distance = 0;
+        while (!isBlockedAhead(game, distance + 1)) {
+            distance++;
+        }
+
+        inputs[game] = (double) distance / ((double) B_WIDTH / (double) DOT_SIZE);
+        inputs[size + game] = DIRECTION_INPUT[direction[game]];
+        inputs[2 * size + game] = (double) appleX[game] / (double) B_WIDTH;
+        inputs[3 * size + game] = (double) appleY[game] / (double) B_HEIGHT;
+        inputs[4 * size + game] = (double) x[h] / (double) B_WIDTH;
+        inputs[5 * size + game] = (double) y[h] / (double) B_HEIGHT;
+    }
+
+    private boolean isBlockedAhead(int game, int steps) {
+        int h = index(game, 0);
+        int nextX = x[h] + steps * MOVE_X[direction[game]];
+        int nextY = y[h] + steps * MOVE_Y[direction[game]];
+
+        if (isWall(nextX, nextY)) {
+            return true;
+        }
+        int age = moves[game] - entered[game * CELLS + cell(nextX, nextY)];
+        return age >= 1 && age <= dots[game] - steps;
+    }
+
+    /**
+     * The ray inputs of SnakeSimulation
+     */
+    private void castRays(int game, double[] inputs) {
+        int h = index(game, 0);
+        if (isWall(x[h], y[h])) {
+            for (int i = 0; i < 3 * numRays; i++) {
+                inputs[i * size + game] = 0;
+            }
+            return;
+        }
+
+        int column = x[h] / DOT_SIZE;
+        int row = y[h] / DOT_SIZE;
+        int appleColumn = appleX[game] / DOT_SIZE;
+        int appleRow = appleY[game] / DOT_SIZE;
+
+        for (int ray = 0; ray < numRays; ray++) {
+            int dx = RAY_X[ray];
+            int dy = RAY_Y[ray];
+
+            int wall = Integer.MAX_VALUE;
+            if (dx != 0) {
+                wall = dx > 0 ? COLUMNS - column : column;
+            }
+            if (dy != 0) {
+                wall = Math.min(wall, dy > 0 ? ROWS - row : row);
+            }
+
+            int body = dotDistance(game, ray, column, row);
+
+            int apple = dx != 0 ? (appleColumn - column) * dx : (appleRow - row) * dy;
+            if (apple <= 0 || column + apple * dx != appleColumn || row + apple * dy != appleRow) {
+                apple = Integer.MAX_VALUE;
+            }
+
+            inputs[3 * ray * size + game] = 1.0 / wall;
+            inputs[(3 * ray + 1) * size + game] = body < wall ? 1.0 / body : 0;
+            inputs[(3 * ray + 2) * size + game] = apple < wall ? 1.0 / apple : 0;
+        }
+    }
+
+    private int dotDistance(int game, int ray, int column, int row) {
+        switch (ray) {
+            case 0:
+                return nearest(columns[game * COLUMNS + column], row, false);
+            case 1:
+                return nearest(columns[game * COLUMNS + column], row, true);
+            case 2:
+                return nearest(rows[game * ROWS + row], column, true);
+            case 3:
+                return nearest(rows[game * ROWS + row], column, false);
+            case 4:
+                return nearest(antiDiagonals[game * LINES + column + row], column, true);
+            case 5:
+                return nearest(diagonals[game * LINES + column - row + ROWS - 1], column, true);
+            case 6:
+                return nearest(antiDiagonals[game * LINES + column + row], column, false);
+            default:
+                return nearest(diagonals[game * LINES + column - row + ROWS - 1], column, false);
+        }
+    }
+
+    private void mark(int game, int x, int y, boolean occupied) {
+        if (x < 0 || x >= B_WIDTH || y < 0 || y >= B_HEIGHT) {
+            return;
+        }
+        int column = x / DOT_SIZE;
+        int row = y / DOT_SIZE;
+        long bit = 1L << column;
+        int diagonal = game * LINES + column - row + ROWS - 1;
+        int antiDiagonal = game * LINES + column + row;
+
+        if (occupied) {
+            rows[game * ROWS + row] |= bit;
+            columns[game * COLUMNS + column] |= 1L << row;
+            diagonals[diagonal] |= bit;
+            antiDiagonals[antiDiagonal] |= bit;
+        } else {
+            rows[game * ROWS + row] &= ~bit;
+            columns[game * COLUMNS + column] &= ~(1L << row);
+            diagonals[diagonal] &= ~bit;
+            antiDiagonals[antiDiagonal] &= ~bit;
+        }
+    }
+
+    /**
+     * @return position of a dot of a game in the ring buffers
+     */
+    private int index(int game, int dot) {
+        return game * ALL_DOTS + Math.floorMod(head[game] - dot, ALL_DOTS);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param i number of the ended game, below the count returned by the last step
+     * @return index of a game that ended in the last step
+     */
+    public int getEnded(int i) {
+        return ended[i];
+    }
+
+    public boolean isRunning(int game) {
+        return running[game];
+    }
+
+    /**
+     * @return fitness of the current or, after it ended, the last game
+     */
+    public int getFitness(int game) {
+        return fitness[game];
+    }
+}
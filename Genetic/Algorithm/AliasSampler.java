@@ -0,0 +1,78 @@
+package Genetic.Algorithm;
+
+import Help.Helper;
+
+/**
+ * Samples indexes with a probability proportional to their weight in O(1), using Vose's alias method. Building the
+ * table takes O(n), so it pays off as soon as more than a handful of samples are drawn from the same weights.
+ */
+public class AliasSampler {
+
+    // Probability to keep the drawn column instead of taking its alias
+    private double[] probability;
+    private int[] alias;
+
+    /**
+     * @param weights non-negative weight of every index, all indexes are equally likely if the weights sum up to 0
+     */
+    public AliasSampler(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+
+        double total = 0;
+        for (double weight : weights) {
+            total += Math.max(0, weight);
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0, numLarge = 0;
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = total > 0 ? Math.max(0, weights[i]) * n / total : 1;
+            if (scaled[i] < 1) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+
+        //Fill every column below 1 up with the surplus of a column above 1
+        while (numSmall > 0 && numLarge > 0) {
+            int less = small[--numSmall];
+            int more = large[--numLarge];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[numSmall++] = more;
+            } else {
+                large[numLarge++] = more;
+            }
+        }
+
+        //What is left is 1 up to rounding errors
+        while (numLarge > 0) {
+            probability[large[--numLarge]] = 1;
+        }
+        while (numSmall > 0) {
+            probability[small[--numSmall]] = 1;
+        }
+    }
+
+    /**
+     * @return random index, drawn from the generator of the calling thread
+     */
+    public int sample() {
+        int column = Helper.randomInt(0, probability.length);
+        return Helper.randomDouble() < probability[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+}
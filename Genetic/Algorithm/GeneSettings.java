@@ -4,4 +4,10 @@ public final class GeneSettings {
     public static double MAX_PERTURBATION = 0.6;
     public static int NUM_ELITES = 2;
     public static int NUM_COPY_ELITES = 1;
+    // Number of genomes competing in one tournament
+    public static int TOURNAMENT_SIZE = 2;
+    // Probability that the fittest genome of a tournament wins, 1 always picks the fittest
+    public static double TOURNAMENT_PRESSURE = 1;
+    // If set to true, selection works on the rank of a genome instead of its fitness, which needs a full sort
+    public static boolean RANK_SCALING = false;
 }
@@ -4,6 +4,7 @@ import Help.Helper;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.IntToDoubleFunction;
 
 public class GeneticAlgorithm implements Serializable {
     private List<Genome> population;
@@ -17,21 +18,62 @@ public class GeneticAlgorithm implements Serializable {
     private double bestFitness;
     private double worstFitness;
     private double averageFitness;
+    // Seed of the run that created this population
+    private long seed;
+    // Roulette wheel of the current population, built when it is first needed in an epoch
+    private transient AliasSampler roulette;
+    // Indexes of the fittest genomes of the current population, fittest first
+    private transient int[] elites;
+    // Rank of every genome of the current population, 1 for the worst, set when the selection uses rank scaling
+    private transient double[] ranks;
 
     public GeneticAlgorithm(int populationSize, int chromoLength, double mutationRate, double crossRate) {
+        this(new ArrayList<>(), populationSize, chromoLength, mutationRate, crossRate);
+    }
+
+    /**
+     * Fills the given, empty list with a random population, e.g. an off-heap {@link MappedPopulation}
+     *
+     * @param population list that holds the population
+     */
+    public GeneticAlgorithm(List<Genome> population, int populationSize, int chromoLength, double mutationRate, double crossRate) {
         this.populationSize = populationSize;
         this.chromoLength = chromoLength;
         this.mutationRate = mutationRate;
         this.crossRate = crossRate;
-        population = new ArrayList<>();
+        this.population = population;
 
         for (int i = 0; i < populationSize; i++) {
-            population.add(new Genome(new ArrayList<>(), 0));
+            population.add(randomGenome());
+        }
+    }
 
-            for (int j = 0; j < chromoLength; j++) {
-                population.get(i).addWeight(Helper.randomClamped());
-            }
+    /**
+     * Continues with an existing population, e.g. one read from a checkpoint
+     *
+     * @param population   genomes of the population, all of the same length
+     * @param mutationRate probability of a mutation
+     * @param crossRate    probability of a crossover
+     * @param generation   number of the generation the population belongs to
+     */
+    public GeneticAlgorithm(List<Genome> population, double mutationRate, double crossRate, int generation) {
+        this.population = population;
+        this.populationSize = population.size();
+        this.chromoLength = population.isEmpty() ? 0 : population.get(0).size();
+        this.mutationRate = mutationRate;
+        this.crossRate = crossRate;
+        this.generation = generation;
+    }
+
+    /**
+     * @return a new genome with random weights between -1 and 1
+     */
+    private Genome randomGenome() {
+        double[] weights = new double[chromoLength];
+        for (int j = 0; j < chromoLength; j++) {
+            weights[j] = Helper.randomClamped();
         }
+        return new Genome(weights, 0);
     }
 
 
@@ -42,12 +84,9 @@ public class GeneticAlgorithm implements Serializable {
      * @return mutated genome
      */
     public Genome mutate(Genome genome) {
-        List<Double> weights = genome.getWeights();
-        double newValue;
-        for (int i = 0; i < weights.size(); i++) {
+        for (int i = 0; i < genome.size(); i++) {
             if (Helper.randomDouble() < this.mutationRate) {
-                newValue = weights.get(i) + (Helper.randomClamped() * GeneSettings.MAX_PERTURBATION);
-                genome.setWeight(i, newValue);
+                genome.setWeight(i, genome.getWeight(i) + Helper.randomClamped() * GeneSettings.MAX_PERTURBATION);
             }
         }
         return genome;
@@ -59,68 +98,45 @@ public class GeneticAlgorithm implements Serializable {
      * @return genome based on roulette wheel sampling
      */
     public Genome genomeRoulette() {
-        //Generate a random number between 0 & total fitness count
-        double slice = Helper.randomDouble() * this.totalFitness;
-        //This will be the chosen Genome
-        Genome chosenOne = null;
-
-        //Go through the chromosomes adding up the fitness so far
-        double fitnessSoFar = 0.0;
-        boolean found = false;
-        for (int i = 0; i < this.populationSize && !found; i++) {
-            fitnessSoFar += this.population.get(i).getFitness();
-            //if the fitness so far > random number return the chromo at this point
-            if (fitnessSoFar >= slice) {
-                chosenOne = this.population.get(i);
-                found = true;
-            }
-
-        }
+        return this.population.get(roulette().sample());
+    }
 
-        //If the Roullette failed give at least some random genome
-        if (!found) {
-            chosenOne = this.population.get(Helper.randomInt(0, this.populationSize));
+    /**
+     * @return alias table of the fitness of the current population, built once per epoch
+     */
+    private AliasSampler roulette() {
+        if (this.roulette == null) {
+            double[] fitnesses = new double[this.population.size()];
+            for (int i = 0; i < fitnesses.length; i++) {
+                fitnesses[i] = selectionFitness(i);
+            }
+            this.roulette = new AliasSampler(fitnesses);
         }
-        return chosenOne;
+        return this.roulette;
     }
 
-
+    /**
+     * Picks half the population by fitness proportional sampling, without picking a genome twice
+     *
+     * @return selected genomes
+     */
     public List<Genome> select() {
-        // Record the cumulative fitness scores. It doesn't matter whether the
-        // population is sorted or not. We will use these cumulative scores to work out
-        // an index into the population. The cumulative array itself is implicitly
-        // sorted since each element must be greater than the previous one. The
-        // numerical difference between an element and the previous one is directly
-        // proportional to the probability of the corresponding candidate in the population
-        // being selected.
-        double[] cumulativeFitnesses = new double[population.size()];
+        AliasSampler sampler = roulette();
+        boolean[] selected = new boolean[population.size()];
         int index, tries = 0;
-        Random rng = new Random();
-        cumulativeFitnesses[0] = population.get(0).getFitness();
-        for (int i = 1; i < population.size(); i++) {
-            double fitness = population.get(i).getFitness();
-            cumulativeFitnesses[i] = cumulativeFitnesses[i - 1] + fitness;
-        }
+
         List<Genome> selection = new ArrayList<Genome>(population.size());
         for (int i = 0; i < population.size() / 2; i++) {
             do {
-                double randomFitness = rng.nextDouble() * cumulativeFitnesses[cumulativeFitnesses.length - 1];
-                index = Arrays.binarySearch(cumulativeFitnesses, randomFitness);
-                if (index < 0) {
-                    // Convert negative insertion point to array index.
-                    index = Math.abs(index + 1);
-                }
+                index = sampler.sample();
                 tries++;
-            } while (selection.contains(population.get(index)) && tries < populationSize);
+            } while (selected[index] && tries < populationSize);
 
             if (tries >= populationSize) {
                 //If we don't have enough different genomes anymore just add a new random one
-                selection.add(new Genome(new ArrayList<>(), 0));
-
-                for (int j = 0; j < chromoLength; j++) {
-                    selection.get(i).addWeight(Helper.randomClamped());
-                }
+                selection.add(randomGenome());
             } else {
+                selected[index] = true;
                 selection.add(population.get(index));
             }
 
@@ -130,36 +146,103 @@ public class GeneticAlgorithm implements Serializable {
 
 
 
+    /**
+     * Picks half the population by k-way tournaments of TOURNAMENT_SIZE genomes. The contestants are drawn from a
+     * shuffled index array, so no genome enters two tournaments until every genome had its turn. The fittest
+     * contestant wins with probability TOURNAMENT_PRESSURE, otherwise the next fittest gets the same chance and so on.
+     * Runs in O(n * k) for full pressure.
+     *
+     * @return winners of the tournaments
+     */
     public List<Genome> tournament() {
-        List<Genome> winners = new ArrayList<>();
-        List<Integer> freeIndexes = new ArrayList<>();
-        int index1, index2;
+        int size = Math.max(1, Math.min(GeneSettings.TOURNAMENT_SIZE, populationSize));
+        List<Genome> winners = new ArrayList<>(populationSize / 2);
+        int[] indexes = new int[populationSize];
+        int[] contestants = new int[size];
+        int next = 0;
 
         for (int i = 0; i < populationSize; i++) {
-            freeIndexes.add(i);
+            indexes[i] = i;
         }
 
         while (winners.size() < populationSize / 2) {
-            index1 = freeIndexes.get(Helper.randomInt(0, freeIndexes.size() - 1));
-            freeIndexes.remove(new Integer(index1));
-
-            if (freeIndexes.size() == 1) {
-                index2 = freeIndexes.get(0);
-            } else {
-                index2 = freeIndexes.get(Helper.randomInt(0, freeIndexes.size() - 1));
+            //Start a new pass when not enough unused genomes are left
+            if (next + size > populationSize) {
+                next = 0;
             }
-            freeIndexes.remove(new Integer(index2));
 
-            if (population.get(index1).getFitness() > population.get(index2).getFitness()) {
-                winners.add(population.get(index1));
-            } else {
-                winners.add(population.get(index2));
+            //Partial Fisher-Yates shuffle, only the contestants of this tournament are drawn
+            for (int j = 0; j < size; j++, next++) {
+                int swap = Helper.randomInt(next, populationSize);
+                int index = indexes[swap];
+                indexes[swap] = indexes[next];
+                indexes[next] = index;
+                contestants[j] = index;
             }
+
+            winners.add(population.get(contestants[tournamentWinner(contestants, this::selectionFitness)]));
         }
 
         return winners;
     }
 
+    /**
+     * Breeds a single child for steady-state evolution: both parents win a tournament of TOURNAMENT_SIZE genomes drawn
+     * at random from the given genomes, the child is the first offspring of their crossover, mutated.
+     *
+     * @param candidates scored genomes the parents are drawn from, e.g. the scored part of the population
+     * @return new genome, not part of the population
+     */
+    public Genome breed(List<Genome> candidates) {
+        int size = Math.max(1, Math.min(GeneSettings.TOURNAMENT_SIZE, candidates.size()));
+        int[] contestants = new int[size];
+        Genome[] parents = new Genome[2];
+
+        for (int i = 0; i < parents.length; i++) {
+            for (int j = 0; j < size; j++) {
+                contestants[j] = Helper.randomInt(0, candidates.size());
+            }
+            parents[i] = candidates.get(contestants[tournamentWinner(contestants, index -> candidates.get(index).getFitness())]);
+        }
+        return mutate(crossover(parents[0], parents[1]).get(0));
+    }
+
+    /**
+     * @param contestants indexes of the genomes in the tournament, reordered by fitness if the pressure is below 1
+     * @param fitness     what the contestants are compared by
+     * @return position of the winner in contestants
+     */
+    private int tournamentWinner(int[] contestants, IntToDoubleFunction fitness) {
+        if (GeneSettings.TOURNAMENT_PRESSURE >= 1) {
+            int best = 0;
+            for (int j = 1; j < contestants.length; j++) {
+                if (fitness.applyAsDouble(contestants[j]) > fitness.applyAsDouble(contestants[best])) {
+                    best = j;
+                }
+            }
+            return best;
+        }
+
+        //Insertion sort by descending fitness, tournaments are small
+        for (int j = 1; j < contestants.length; j++) {
+            int index = contestants[j];
+            double value = fitness.applyAsDouble(index);
+            int k = j - 1;
+            while (k >= 0 && fitness.applyAsDouble(contestants[k]) < value) {
+                contestants[k + 1] = contestants[k];
+                k--;
+            }
+            contestants[k + 1] = index;
+        }
+
+        for (int j = 0; j < contestants.length - 1; j++) {
+            if (Helper.randomDouble() < GeneSettings.TOURNAMENT_PRESSURE) {
+                return j;
+            }
+        }
+        return contestants.length - 1;
+    }
+
     /**
      * Mix the weights of the parents to create their children
      *
@@ -171,10 +254,15 @@ public class GeneticAlgorithm implements Serializable {
         List<Genome> result = new ArrayList<>();
         Genome baby1, baby2;
 
-        //Just return parents as offspring dependent on the rate or if parents are the same
+        //Just return copies of the parents as offspring dependent on the rate or if parents are the same.
+        //Copies, because the offspring gets mutated in place and the parents may still be elites
         if (Helper.randomDouble() > this.crossRate || mum.equals(dad)) {
-            result.add(mum);
-            result.add(dad);
+            baby1 = new Genome(mum);
+            baby2 = new Genome(dad);
+            baby1.setExpectedFitness(mum.getFitness());
+            baby2.setExpectedFitness(dad.getFitness());
+            result.add(baby1);
+            result.add(baby2);
             return result;
         }
 
@@ -183,19 +271,15 @@ public class GeneticAlgorithm implements Serializable {
 
         //create the offspring
 
-        List<Double> mumWeights = new ArrayList<>(mum.getWeights());
-        List<Double> dadWeights = new ArrayList<>(dad.getWeights());
-        baby1 = new Genome(new ArrayList<>(), 0);
-        baby2 = new Genome(new ArrayList<>(), 0);
+        baby1 = new Genome(this.chromoLength);
+        baby2 = new Genome(this.chromoLength);
 
-        for (int i = 0; i < crossPoint; i++) {
-            baby1.setWeight(i, mumWeights.get(i));
-            baby2.setWeight(i, dadWeights.get(i));
-        }
-        for (int i = crossPoint; i < this.chromoLength; i++) {
-            baby1.setWeight(i, dadWeights.get(i));
-            baby2.setWeight(i, mumWeights.get(i));
-        }
+        baby1.copyWeights(mum, 0, crossPoint);
+        baby2.copyWeights(dad, 0, crossPoint);
+        baby1.copyWeights(dad, crossPoint, this.chromoLength);
+        baby2.copyWeights(mum, crossPoint, this.chromoLength);
+        baby1.setExpectedFitness((mum.getFitness() + dad.getFitness()) / 2);
+        baby2.setExpectedFitness(baby1.getExpectedFitness());
 
         result.add(baby1);
         result.add(baby2);
@@ -210,7 +294,7 @@ public class GeneticAlgorithm implements Serializable {
     }
 
     /**
-     * Updates the best, worst, average and total fitness
+     * Updates the best, worst, average and total fitness and finds the NUM_ELITES fittest genomes in the same pass
      */
     public void calculateStats() {
         this.totalFitness = 0;
@@ -218,9 +302,11 @@ public class GeneticAlgorithm implements Serializable {
         double currentMax = 0;
         double currentMin = Double.MAX_VALUE;
         double currentFitness;
+        Fittest fittest = new Fittest(GeneSettings.NUM_ELITES);
 
         for (int i = 0; i < this.populationSize; i++) {
             currentFitness = this.population.get(i).getFitness();
+            fittest.offer(i, currentFitness);
 
             //update fittest if necessary
             if (currentFitness > currentMax) {
@@ -239,37 +325,96 @@ public class GeneticAlgorithm implements Serializable {
         }
 
         this.averageFitness = this.totalFitness / this.populationSize;
+        this.elites = fittest.indexes();
+    }
+
+    /**
+     * Ranks every genome for the selection, 1 for the worst genome. Needs the population sorted. The fitness of the
+     * genomes is left as it is, so the elites and the expected fitness of the offspring still use the real score.
+     */
+    private void scaleByRank() {
+        this.ranks = new double[this.population.size()];
+        for (int i = 0; i < this.ranks.length; i++) {
+            this.ranks[i] = i + 1;
+        }
+        this.roulette = null;
+    }
+
+    /**
+     * @return what the selection compares a genome by, its rank when rank scaling is on, otherwise its fitness
+     */
+    private double selectionFitness(int index) {
+        return this.ranks != null ? this.ranks[index] : this.population.get(index).getFitness();
     }
 
+    /**
+     * Adds copies of the fittest genomes to a population
+     *
+     * @param numBest   how many of the fittest genomes
+     * @param numCopies how often each of them is added
+     * @param population population the genomes are added to
+     * @return population
+     */
     public List<Genome> grabNBest(int numBest, int numCopies, List<Genome> population) {
+        if (this.elites == null || this.elites.length < Math.min(numBest, this.population.size())) {
+            Fittest fittest = new Fittest(numBest);
+            for (int i = 0; i < this.population.size(); i++) {
+                fittest.offer(i, this.population.get(i).getFitness());
+            }
+            this.elites = fittest.indexes();
+        }
+
         while (numCopies-- > 0) {
-            for (int i = populationSize - 1; i > (populationSize - 1 - numBest); i--) {
-                population.add(this.population.get(i));
+            for (int i = 0; i < numBest && i < this.elites.length; i++) {
+                population.add(this.population.get(this.elites[i]));
             }
         }
         return population;
     }
 
+    /**
+     * @return an empty list for the next generation, kept in the same kind of storage as the current one
+     */
+    private List<Genome> nextPopulation() {
+        if (this.population instanceof MappedPopulation) {
+            return ((MappedPopulation) this.population).next();
+        }
+        return new ArrayList<>();
+    }
+
     public List<Genome> epoch(List<Genome> oldPopulation, boolean tournament) {
-        //create a temporary population to store new genomes
-        List<Genome> newPopulation = new ArrayList<>();
+        List<Genome> newPopulation;
         List<Genome> children, candidates, candidates2 = null;
         Genome mum, dad, baby1, baby2;
         int candidateCounter = 0;
 
         //assign the given population to the classes population
         this.population = oldPopulation;
+        this.roulette = null;
+        this.elites = null;
+        this.ranks = null;
+        //create a temporary population to store new genomes
+        newPopulation = nextPopulation();
         //Reset current generation
         this.reset();
 
-        //Sort the population (for scaling and elitism)
-        Collections.sort(this.population);
-        //calculate best, worst, average and total fitness
+        //Only rank scaling needs the whole population sorted, elitism just needs the fittest few
+        if (GeneSettings.RANK_SCALING) {
+            Collections.sort(this.population);
+        }
+        //calculate best, worst, average and total fitness and find the elites
         this.calculateStats();
+        if (GeneSettings.RANK_SCALING) {
+            this.scaleByRank();
+        }
 
         //Now to add a little elitism we shall add in some copies of the fittest genomes. Make sure we add an EVEN number or the roulette wheel sampling will crash
         if ((GeneSettings.NUM_COPY_ELITES * GeneSettings.NUM_ELITES) % 2 == 0) {
             newPopulation = grabNBest(GeneSettings.NUM_ELITES, GeneSettings.NUM_COPY_ELITES, newPopulation);
+            //Elites play again, so they are expected to do as well as in this generation
+            for (Genome elite : newPopulation) {
+                elite.setExpectedFitness(elite.getFitness());
+            }
         }
 
         if (tournament) {
@@ -315,10 +460,24 @@ public class GeneticAlgorithm implements Serializable {
 
         //finnished so assign new population back into class Population
         this.population = newPopulation;
+        this.roulette = null;
+        this.elites = null;
+        this.ranks = null;
         this.generation++;
         return this.population;
     }
 
+    /**
+     * Restores the statistics of the last generation, e.g. from a checkpoint
+     */
+    public void setStats(double totalFitness, double bestFitness, double worstFitness, double averageFitness, int fittestGenome) {
+        this.totalFitness = totalFitness;
+        this.bestFitness = bestFitness;
+        this.worstFitness = worstFitness;
+        this.averageFitness = averageFitness;
+        this.fittestGenome = fittestGenome;
+    }
+
     public Genome getBestGenome() {
         return this.population.get(this.fittestGenome);
     }
@@ -327,6 +486,30 @@ public class GeneticAlgorithm implements Serializable {
         return population;
     }
 
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    public int getChromoLength() {
+        return chromoLength;
+    }
+
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    public double getCrossRate() {
+        return crossRate;
+    }
+
+    public int getFittestGenome() {
+        return fittestGenome;
+    }
+
+    public double getTotalFitness() {
+        return totalFitness;
+    }
+
     public double getAverageFitness() {
         return averageFitness;
     }
@@ -342,4 +525,89 @@ public class GeneticAlgorithm implements Serializable {
     public int getGeneration() {
         return generation;
     }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Bounded min-heap that keeps the indexes of the fittest genomes offered to it, O(log k) per offer
+     */
+    private static final class Fittest {
+        private int[] indexes;
+        private double[] fitness;
+        private int size;
+
+        private Fittest(int capacity) {
+            indexes = new int[Math.max(0, capacity)];
+            fitness = new double[indexes.length];
+        }
+
+        private void offer(int index, double value) {
+            if (size < indexes.length) {
+                //Sift the new genome up from the end
+                int i = size++;
+                while (i > 0 && fitness[(i - 1) / 2] > value) {
+                    indexes[i] = indexes[(i - 1) / 2];
+                    fitness[i] = fitness[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                indexes[i] = index;
+                fitness[i] = value;
+            } else if (size > 0 && value > fitness[0]) {
+                //Replace the least fit genome at the root and sift down
+                int i = 0;
+                while (2 * i + 1 < size) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && fitness[child + 1] < fitness[child]) {
+                        child++;
+                    }
+                    if (fitness[child] >= value) {
+                        break;
+                    }
+                    indexes[i] = indexes[child];
+                    fitness[i] = fitness[child];
+                    i = child;
+                }
+                indexes[i] = index;
+                fitness[i] = value;
+            }
+        }
+
+        /**
+         * Empties the heap
+         *
+         * @return the kept indexes, fittest first
+         */
+        private int[] indexes() {
+            int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = indexes[0];
+                //Move the last element to the root and sift it down
+                size--;
+                int index = indexes[size];
+                double value = fitness[size];
+                int i = 0;
+                while (2 * i + 1 < size) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && fitness[child + 1] < fitness[child]) {
+                        child++;
+                    }
+                    if (fitness[child] >= value) {
+                        break;
+                    }
+                    indexes[i] = indexes[child];
+                    fitness[i] = fitness[child];
+                    i = child;
+                }
+                indexes[i] = index;
+                fitness[i] = value;
+            }
+            return result;
+        }
+    }
 }
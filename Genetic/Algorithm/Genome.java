@@ -1,25 +1,40 @@
 package Genetic.Algorithm;
 
 import java.io.Serializable;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Chromosome of one net and its fitness. The weights are kept in a double[] on the heap, subclasses may keep them
+ * elsewhere and then have to override every accessor.
+ */
 public class Genome implements Comparable<Genome>, Serializable {
 
-    private List<Double> weights;
+    private double[] weights;
     private double fitness;
+    // Fitness the genome is expected to reach, that of its parents, so evaluators can start long games first
+    private transient double expectedFitness;
 
-    public Genome(List<Double> weights, double fitness) {
+    public Genome(double[] weights, double fitness) {
         this.weights = weights;
         this.fitness = fitness;
     }
 
     /**
-     * Adds another weight to the genome.
+     * Creates a genome with all weights set to 0
      *
-     * @param weight Weight that is added to the weights of the genome
+     * @param chromoLength number of weights in the genome
      */
-    public void addWeight(double weight) {
-        this.weights.add(weight);
+    public Genome(int chromoLength) {
+        this(new double[chromoLength], 0);
+    }
+
+    /**
+     * Creates a deep copy of another genome
+     *
+     * @param other Genome to copy
+     */
+    public Genome(Genome other) {
+        this(other.weights != null ? other.weights.clone() : other.getWeights(), other.getFitness());
     }
 
     /**
@@ -29,29 +44,75 @@ public class Genome implements Comparable<Genome>, Serializable {
      * @return 0 if the fitness is the same, -1 if the other is fitter and 1 if this genome is fitter
      */
     public int compareTo(Genome other) {
-        if (this.fitness == other.fitness) {
+        if (this.getFitness() == other.getFitness()) {
             return 0;
         }
-        return (this.fitness < other.fitness) ? -1 : 1;
+        return (this.getFitness() < other.getFitness()) ? -1 : 1;
     }
 
-    public List<Double> getWeights() {
+    /**
+     * Gives direct access to the weights, changes to the array change the genome. Genomes that do not keep their
+     * weights on the heap return a copy instead.
+     *
+     * @return the weights of the genome
+     */
+    public double[] getWeights() {
         return weights;
     }
 
+    public int size() {
+        return weights.length;
+    }
+
     public boolean equals(Object other) {
-        return (other instanceof Genome) && this.weights.equals(((Genome) other).weights);
+        if (!(other instanceof Genome)) {
+            return false;
+        }
+        Genome genome = (Genome) other;
+        if (this.weights != null && genome.weights != null) {
+            return Arrays.equals(this.weights, genome.weights);
+        }
+        if (this.size() != genome.size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (Double.doubleToLongBits(this.getWeight(i)) != Double.doubleToLongBits(genome.getWeight(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+
+    public double getWeight(int i) {
+        return weights[i];
     }
 
     public void setWeight(int i, double value) {
-        try {
-            weights.get(i);
-        } catch (IndexOutOfBoundsException e) {
-            weights.add(i, value);
+        weights[i] = value;
+    }
+
+    /**
+     * Copies a slice of the weights of another genome into this genome
+     *
+     * @param source Genome to copy from
+     * @param from   index of the first weight to copy, in both genomes
+     * @param to     exclusive index of the last weight to copy
+     */
+    public void copyWeights(Genome source, int from, int to) {
+        if (source.weights != null) {
+            System.arraycopy(source.weights, from, this.weights, from, to - from);
+        } else {
+            for (int i = from; i < to; i++) {
+                this.weights[i] = source.getWeight(i);
+            }
         }
     }
 
-    public void setWeights(List<Double> weights) {
+    public void setWeights(double[] weights) {
         this.weights = weights;
     }
 
@@ -62,4 +123,15 @@ public class Genome implements Comparable<Genome>, Serializable {
     public void setFitness(double fitness) {
         this.fitness = fitness;
     }
+
+    /**
+     * @return fitness the genome is expected to reach, 0 if nothing is known
+     */
+    public double getExpectedFitness() {
+        return expectedFitness;
+    }
+
+    public void setExpectedFitness(double expectedFitness) {
+        this.expectedFitness = expectedFitness;
+    }
 }
@@ -0,0 +1,376 @@
+package Genetic.Algorithm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+/**
+ * Off-heap population kept in a memory-mapped file, so a population may be larger than the heap and a restarted run
+ * continues from the file without deserializing anything.
+ * <p>
+ * The file holds two slots of fixed-stride records, one record per genome: the fitness followed by the weights, all
+ * little-endian doubles. One slot holds the current generation while {@link GeneticAlgorithm#epoch(List, boolean)}
+ * writes the next one into the other slot through {@link #next()}. {@link #commit(int, long)} then marks the new
+ * slot as current. The header holds two commit blocks, each with a sequence number, the slot, size, generation and
+ * seed, and a CRC32 of them. A commit overwrites the older block, and opening the file picks the valid block with the
+ * higher sequence number, so a crash, even in the middle of a commit, leaves the last committed generation intact.
+ * <p>
+ * {@link #get(int)} returns genomes that read and write their record directly. {@link #add(Genome)} and
+ * {@link #set(int, Genome)} copy the given genome into a record. Sorting only reorders an index, not the records.
+ * The expected fitness is not saved, like in a checkpoint, and kept on the heap by record.
+ */
+public class MappedPopulation extends AbstractList<Genome> implements RandomAccess, Closeable {
+
+    private static final int MAGIC = 0x504B4E53;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4096;
+    // Offset of the first commit block, the second one follows it
+    private static final int COMMIT_OFFSET = 64;
+    // Sequence number (long), slot, size, generation (int), seed (long), then the CRC32 of those (long)
+    private static final int COMMIT_BYTES = 36;
+    private static final int CHECKED_BYTES = 28;
+    // A single mapping cannot exceed 2GB, so the records are mapped in chunks of at most this size
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    private Storage storage;
+    private int slot;
+    private int size;
+    // Record of every genome in this list, in list order
+    private int[] order;
+
+    private MappedPopulation(Storage storage, int slot, int size) {
+        this.storage = storage;
+        this.slot = slot;
+        this.size = size;
+        this.order = new int[storage.capacity];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Opens the population file or creates it if it does not exist yet
+     *
+     * @param file         population file
+     * @param capacity     maximum number of genomes per generation
+     * @param chromoLength number of weights per genome
+     * @return the last committed generation, empty for a new file
+     * @throws IOException if the file cannot be mapped or was created for another capacity or chromosome length
+     */
+    public static MappedPopulation open(Path file, int capacity, int chromoLength) throws IOException {
+        Storage storage = new Storage(file, capacity, chromoLength);
+        int commit = storage.commitOffset();
+        return commit < 0 ? new MappedPopulation(storage, 0, 0)
+                : new MappedPopulation(storage, storage.header.getInt(commit + 8), storage.header.getInt(commit + 12));
+    }
+
+    /**
+     * Empties the other slot and returns it as the list for the next generation. Genomes of this generation stay
+     * readable until the next generation is committed and the slot gets reused.
+     *
+     * @return empty population in the other slot
+     */
+    public MappedPopulation next() {
+        return new MappedPopulation(storage, 1 - slot, 0);
+    }
+
+    /**
+     * Makes this list the current generation of the file and writes everything to disk
+     *
+     * @param generation number of the generation
+     * @param seed       seed of the run
+     */
+    public void commit(int generation, long seed) {
+        //Records must be in list order in the file, so a restart reads the same population
+        if (!isIdentityOrder()) {
+            throw new IllegalStateException("Only unsorted generations can be committed");
+        }
+        storage.force();
+        //The block of the last commit stays untouched until this one is on disk
+        int block = storage.commit == 0 ? 1 : 0;
+        int offset = COMMIT_OFFSET + block * COMMIT_BYTES;
+        storage.header.putLong(offset, storage.sequence + 1);
+        storage.header.putInt(offset + 8, slot);
+        storage.header.putInt(offset + 12, size);
+        storage.header.putInt(offset + 16, generation);
+        storage.header.putLong(offset + 20, seed);
+        storage.header.putLong(offset + CHECKED_BYTES, storage.checksum(offset));
+        storage.header.force();
+        storage.commit = block;
+        storage.sequence++;
+    }
+
+    private boolean isIdentityOrder() {
+        for (int i = 0; i < size; i++) {
+            if (order[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of the last committed generation
+     */
+    public int getGeneration() {
+        int commit = storage.commitOffset();
+        return commit < 0 ? 0 : storage.header.getInt(commit + 16);
+    }
+
+    /**
+     * @return seed of the run that committed the last generation
+     */
+    public long getSeed() {
+        int commit = storage.commitOffset();
+        return commit < 0 ? 0 : storage.header.getLong(commit + 20);
+    }
+
+    @Override
+    public Genome get(int index) {
+        checkIndex(index);
+        return new Record(storage, slot * storage.capacity + order[index]);
+    }
+
+    /**
+     * Overwrites the genome at index with a copy of the given genome
+     *
+     * @return the genome at index, which now reads the new values
+     */
+    @Override
+    public Genome set(int index, Genome genome) {
+        Genome record = get(index);
+        record.setWeights(genome.getWeights());
+        record.setFitness(genome.getFitness());
+        record.setExpectedFitness(genome.getExpectedFitness());
+        return record;
+    }
+
+    @Override
+    public boolean add(Genome genome) {
+        if (size == storage.capacity) {
+            throw new IllegalStateException("Population store is full, capacity " + storage.capacity);
+        }
+        order[size] = size;
+        size++;
+        set(size - 1, genome);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void sort(Comparator<? super Genome> comparator) {
+        Record[] records = new Record[size];
+        for (int i = 0; i < size; i++) {
+            records[i] = (Record) get(i);
+        }
+        Arrays.sort(records, comparator);
+        for (int i = 0; i < size; i++) {
+            order[i] = records[i].index - slot * storage.capacity;
+        }
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        storage.channel.close();
+    }
+
+    /**
+     * Mappings of the file, shared by both slots
+     */
+    private static final class Storage {
+        private FileChannel channel;
+        private MappedByteBuffer header;
+        private MappedByteBuffer[] chunks;
+        // Expected fitness of every record of both slots
+        private double[] expected;
+        private int capacity;
+        private int chromoLength;
+        private int stride;
+        private int recordsPerChunk;
+        // Commit block of the last commit, -1 before the first one, and its sequence number
+        private int commit = -1;
+        private long sequence;
+
+        private Storage(Path file, int capacity, int chromoLength) throws IOException {
+            this.capacity = capacity;
+            this.chromoLength = chromoLength;
+            this.stride = 8 * (chromoLength + 1);
+            this.recordsPerChunk = (int) Math.min(CHUNK_BYTES / stride, 2L * capacity);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean created = channel.size() == 0;
+
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(8, capacity);
+                header.putInt(12, chromoLength);
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException(file + " is no population file of version " + VERSION);
+            } else if (header.getInt(8) != capacity || header.getInt(12) != chromoLength) {
+                channel.close();
+                throw new IOException(file + " holds " + header.getInt(8) + " genomes of length " + header.getInt(12)
+                        + ", expected " + capacity + " of length " + chromoLength);
+            }
+
+            for (int block = 0; block < 2; block++) {
+                int offset = COMMIT_OFFSET + block * COMMIT_BYTES;
+                long blockSequence = header.getLong(offset);
+                if (header.getLong(offset + CHECKED_BYTES) == checksum(offset) && (commit < 0 || blockSequence > sequence)) {
+                    commit = block;
+                    sequence = blockSequence;
+                }
+            }
+
+            int records = 2 * capacity;
+            expected = new double[records];
+            chunks = new MappedByteBuffer[(records + recordsPerChunk - 1) / recordsPerChunk];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i * recordsPerChunk;
+                long count = Math.min(recordsPerChunk, records - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + first * stride, count * stride);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        /**
+         * @return offset of the commit block of the last commit, -1 before the first one
+         */
+        private int commitOffset() {
+            return commit < 0 ? -1 : COMMIT_OFFSET + commit * COMMIT_BYTES;
+        }
+
+        /**
+         * @return CRC32 of the fields of the commit block at offset
+         */
+        private long checksum(int offset) {
+            CRC32 crc = new CRC32();
+            crc.update(header.slice(offset, CHECKED_BYTES));
+            return crc.getValue();
+        }
+
+        private void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+    }
+
+    /**
+     * Genome that reads and writes its record in the file directly
+     */
+    private static final class Record extends Genome {
+        private static final long serialVersionUID = 1L;
+
+        private transient Storage storage;
+        private transient MappedByteBuffer chunk;
+        private int index;
+        private int offset;
+
+        private Record(Storage storage, int index) {
+            super(null, 0);
+            this.storage = storage;
+            this.index = index;
+            this.chunk = storage.chunks[index / storage.recordsPerChunk];
+            this.offset = (index % storage.recordsPerChunk) * storage.stride;
+        }
+
+        /**
+         * A record only makes sense next to its file, so it is serialized as a genome on the heap
+         */
+        private Object writeReplace() {
+            return new Genome(getWeights(), getFitness());
+        }
+
+        @Override
+        public double[] getWeights() {
+            double[] weights = new double[storage.chromoLength];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = getWeight(i);
+            }
+            return weights;
+        }
+
+        @Override
+        public int size() {
+            return storage.chromoLength;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(getWeights());
+        }
+
+        @Override
+        public double getWeight(int i) {
+            return chunk.getDouble(offset + 8 + 8 * i);
+        }
+
+        @Override
+        public void setWeight(int i, double value) {
+            chunk.putDouble(offset + 8 + 8 * i, value);
+        }
+
+        @Override
+        public void copyWeights(Genome source, int from, int to) {
+            for (int i = from; i < to; i++) {
+                setWeight(i, source.getWeight(i));
+            }
+        }
+
+        @Override
+        public void setWeights(double[] weights) {
+            for (int i = 0; i < weights.length; i++) {
+                setWeight(i, weights[i]);
+            }
+        }
+
+        @Override
+        public double getFitness() {
+            return chunk.getDouble(offset);
+        }
+
+        @Override
+        public void setFitness(double fitness) {
+            chunk.putDouble(offset, fitness);
+        }
+
+        @Override
+        public double getExpectedFitness() {
+            return storage.expected[index];
+        }
+
+        @Override
+        public void setExpectedFitness(double expectedFitness) {
+            storage.expected[index] = expectedFitness;
+        }
+    }
+}
@@ -1,24 +1,97 @@
 package Help;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 public final class Helper {
 
+    // Generator of the calling thread, threads that never got one assigned split theirs from the seeding generator
+    private static final ThreadLocal<SplittableGenerator> RANDOM = ThreadLocal.withInitial(Helper::splitRoot);
+    private static SplittableGenerator root = new SplittableRandom();
+    // Odd constant that spreads the streams of one seed over the whole range of longs
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
 
     private Helper() {
     }
 
+    /**
+     * Seeds the generator of the calling thread with a SplittableRandom. The same seed gives the same sequence of
+     * random numbers and the same generators split from it.
+     *
+     * @param seed seed of the generator
+     */
+    public static void setSeed(long seed) {
+        setSeed(seed, "SplittableRandom");
+    }
+
+    /**
+     * Seeds the generator of the calling thread with the given algorithm
+     *
+     * @param seed      seed of the generator
+     * @param algorithm name of a splittable algorithm, like SplittableRandom or L64X128MixRandom
+     */
+    public static void setSeed(long seed, String algorithm) {
+        SplittableGenerator random = (SplittableGenerator) RandomGeneratorFactory.of(algorithm).create(seed);
+        synchronized (Helper.class) {
+            root = random.split();
+        }
+        RANDOM.set(random);
+    }
+
+    /**
+     * @return generator of the calling thread
+     */
+    public static SplittableGenerator random() {
+        return RANDOM.get();
+    }
+
+    /**
+     * Makes the calling thread draw from the given generator, e.g. the generator of the game it is about to play
+     *
+     * @param random new generator of the calling thread
+     */
+    public static void setRandom(SplittableGenerator random) {
+        RANDOM.set(random);
+    }
+
+    /**
+     * Splits a new, independent generator off the generator of the calling thread. Splitting in the same order
+     * gives the same generators, no matter on which thread they are used later.
+     *
+     * @return new generator
+     */
+    public static SplittableGenerator split() {
+        return RANDOM.get().split();
+    }
+
+    /**
+     * Derives the seed of a separate stream of random numbers, e.g. one per generation, from the seed of a run. The
+     * seed is mixed before the stream is added, so runs with neighbouring seeds do not share streams.
+     *
+     * @param seed   seed of the run
+     * @param stream number of the stream
+     * @return seed of the stream
+     */
+    public static long deriveSeed(long seed, long stream) {
+        long mixed = new SplittableRandom(seed).nextLong();
+        return new SplittableRandom(mixed + stream * GOLDEN_GAMMA).nextLong();
+    }
+
+    private static synchronized SplittableGenerator splitRoot() {
+        return root.split();
+    }
+
     /**
      * @return Random float value between -1 and 1
      */
     public static double randomClamped() {
-        Random random = new Random();
-        return (random.nextDouble() * 2 - 1);
+        return (RANDOM.get().nextDouble() * 2 - 1);
     }
 
     public static double randomDouble() {
-        Random random = new Random();
-        return random.nextDouble();
+        return RANDOM.get().nextDouble();
     }
 
     /**
@@ -29,8 +102,7 @@ public final class Helper {
      * @return random number between min and max
      */
     public static int randomInt(int min, int max) {
-        Random random = new Random();
-        return random.nextInt(max - min) + min;
+        return RANDOM.get().nextInt(max - min) + min;
     }
 
     public static double sigmoid(double netInput, double response) {
@@ -0,0 +1,166 @@
+package Neural.Net;
+
+import java.util.List;
+
+/**
+ * Runs the forward pass of many nets with the same topology in lockstep.
+ * <p>
+ * The weights of all nets are stacked so that the same weight of every net lies next to each other, and the
+ * activations are kept one row per neuron with one column per net. The innermost loop therefore walks over the nets
+ * through contiguous memory, which the JIT can vectorize, and the loop overhead is shared by the whole batch.
+ * Each net computes exactly the same outputs as a {@link NeuralNet} with the same weights.
+ */
+public class BatchNet {
+
+    private int batchSize;
+    private int numInputs;
+    private int numOutputs;
+    private int[] layerNeurons;
+    private int[] layerInputs;
+    // Per layer: weight j of neuron n of net b is at ((n * (inputs + 1)) + j) * batchSize + b
+    private double[][] weights;
+    // Per layer: output of neuron n of net b is at n * batchSize + b, entry 0 holds the inputs
+    private double[][] activations;
+    private NetKernel kernel;
+
+    /**
+     * Creates a batch with the topology of {@link NeuralNet#NeuralNet(int, int, int, int)}
+     *
+     * @param batchSize number of nets evaluated together
+     */
+    public BatchNet(int numInputs, int numOutputs, int numHiddenLayers, int neuronsPerHiddenLayer, int batchSize) {
+        this(new NeuralNet(numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer), batchSize);
+    }
+
+    /**
+     * Creates a batch with the topology of the given net
+     *
+     * @param shape     net whose topology is used, its weights are ignored
+     * @param batchSize number of nets evaluated together
+     */
+    public BatchNet(NeuralNet shape, int batchSize) {
+        List<NeuronLayer> layers = shape.getLayers();
+        this.batchSize = batchSize;
+        this.numInputs = shape.getNumInputs();
+        this.numOutputs = shape.getNumOutputs();
+        layerNeurons = new int[layers.size()];
+        layerInputs = new int[layers.size()];
+        weights = new double[layers.size()][];
+        activations = new double[layers.size() + 1][];
+        activations[0] = new double[numInputs * batchSize];
+        kernel = NetKernel.get();
+
+        for (int i = 0; i < layers.size(); i++) {
+            layerNeurons[i] = layers.get(i).getNumNeurons();
+            layerInputs[i] = layers.get(i).getInputsPerNeuron();
+            weights[i] = new double[layers.get(i).getWeights().length * batchSize];
+            activations[i + 1] = new double[layerNeurons[i] * batchSize];
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getNumInputs() {
+        return numInputs;
+    }
+
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    /**
+     * Replaces the weights of one net in the batch, in the same order as {@link NeuralNet#putWeights(double[])}
+     *
+     * @param net     index of the net in the batch
+     * @param weights new Weights for the net
+     */
+    public void putWeights(int net, double[] weights) {
+        int weightIndex = 0;
+
+        for (double[] layerWeights : this.weights) {
+            for (int i = net; i < layerWeights.length; i += batchSize) {
+                layerWeights[i] = weights[weightIndex++];
+            }
+        }
+    }
+
+    /**
+     * Calculates the outputs of all nets, one row per net
+     *
+     * @param in  inputs, in[b] is the input of net b
+     * @param out receives the outputs, out[b] is the output of net b
+     */
+    public void update(double[][] in, double[][] out) {
+        double[] input = activations[0];
+        for (int b = 0; b < batchSize; b++) {
+            for (int j = 0; j < numInputs; j++) {
+                input[j * batchSize + b] = in[b][j];
+            }
+        }
+
+        forward();
+
+        double[] output = activations[activations.length - 1];
+        for (int b = 0; b < batchSize; b++) {
+            for (int n = 0; n < numOutputs; n++) {
+                out[b][n] = output[n * batchSize + b];
+            }
+        }
+    }
+
+    /**
+     * Calculates the outputs of all nets from the inputs written into {@link #getInputs()}. Callers that fill the
+     * input buffer directly save copying every input and output.
+     */
+    public void update() {
+        forward();
+    }
+
+    /**
+     * @return input buffer of the batch, input j of net b is at j * batchSize + b
+     */
+    public double[] getInputs() {
+        return activations[0];
+    }
+
+    /**
+     * @return outputs of the last update, output n of net b is at n * batchSize + b
+     */
+    public double[] getOutputs() {
+        return activations[activations.length - 1];
+    }
+
+    private void forward() {
+        int neuronInputs, stride, offset, row;
+
+        for (int i = 0; i < weights.length; i++) {
+            double[] layerWeights = weights[i];
+            double[] input = activations[i];
+            double[] output = activations[i + 1];
+            neuronInputs = layerInputs[i];
+            stride = neuronInputs + 1;
+
+            for (int n = 0; n < layerNeurons[i]; n++) {
+                offset = n * stride * batchSize;
+                row = n * batchSize;
+
+                for (int b = 0; b < batchSize; b++) {
+                    output[row + b] = 0;
+                }
+
+                for (int j = 0; j < neuronInputs; j++) {
+                    kernel.multiplyAdd(output, row, layerWeights, offset + j * batchSize, input, j * batchSize, batchSize);
+                }
+
+                //Same bias weighting as NeuralNet.update
+                int bias = offset + (neuronInputs - 1) * batchSize;
+                for (int b = 0; b < batchSize; b++) {
+                    output[row + b] += layerWeights[bias + b] * NetSettings.BIAS;
+                }
+                kernel.sigmoid(output, row, row + batchSize, NetSettings.ACTIVATION_RESPONSE);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package Neural.Net;
+
+/**
+ * Numeric building blocks of the forward pass. The backend is picked by {@link NetSettings#VECTOR_BACKEND}.
+ */
+public interface NetKernel {
+
+    /**
+     * @return dot product of a[aOffset ... aOffset + length) and b[0 ... length)
+     */
+    double dot(double[] a, int aOffset, double[] b, int length);
+
+    /**
+     * acc[accOffset + i] += a[aOffset + i] * b[bOffset + i] for all i below length
+     */
+    void multiplyAdd(double[] acc, int accOffset, double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /**
+     * Replaces values[from ... to) by their sigmoid
+     */
+    void sigmoid(double[] values, int from, int to, double response);
+
+    /**
+     * Returns the vector backend if it is enabled and the jdk.incubator.vector module is present, the scalar backend
+     * otherwise
+     *
+     * @return kernel to be used for the forward pass
+     */
+    static NetKernel get() {
+        if (NetSettings.VECTOR_BACKEND) {
+            try {
+                return (NetKernel) Class.forName("Neural.Net.VectorKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                //The module is absent, fall back to the scalar path
+            }
+        }
+        return ScalarKernel.INSTANCE;
+    }
+}
@@ -3,4 +3,6 @@ package Neural.Net;
 public final class NetSettings {
     public static double BIAS = -1;
     public static double ACTIVATION_RESPONSE = 1;
+    // If set to true, nets use the SIMD backend with an approximated sigmoid when jdk.incubator.vector is available
+    public static boolean VECTOR_BACKEND = false;
 }
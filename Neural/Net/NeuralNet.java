@@ -1,7 +1,5 @@
 package Neural.Net;
 
-import Help.Helper;
-
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,12 +9,20 @@ public class NeuralNet implements Serializable {
 
     private int numInputs;
     private List<NeuronLayer> layers;
+    // Output buffer of every layer, reused by each call of update
+    private transient double[][] activations;
+    // Backend of the forward pass, picked from NetSettings when the net is first updated
+    private transient NetKernel kernel;
 
     public NeuralNet(int numInputs, int numOutputs, int numHiddenLayers, int neuronsPerHiddenLayer) {
         this.numInputs = numInputs;
         layers = new ArrayList<>();
 
         if (numHiddenLayers > 0) {
+            //The output layer reads as many hidden neurons as the net has inputs
+            if (neuronsPerHiddenLayer < numInputs) {
+                throw new IllegalArgumentException("Hidden layers need at least " + numInputs + " neurons, not " + neuronsPerHiddenLayer);
+            }
             layers.add(new NeuronLayer(neuronsPerHiddenLayer, numInputs));
 
             for (int i = 0; i < numHiddenLayers; i++) {
@@ -28,10 +34,10 @@ public class NeuralNet implements Serializable {
     }
 
     /**
-     * @return an array with the weights
+     * @return a list with the weights of every neuron
      */
-    public List<List<Double>> getWeights() {
-        List<List<Double>> weights = new ArrayList<>();
+    public List<double[]> getWeights() {
+        List<double[]> weights = new ArrayList<>();
 
         for (NeuronLayer layer : layers) {
             for (Neuron neuron : layer.getNeurons()) {
@@ -47,17 +53,13 @@ public class NeuralNet implements Serializable {
      *
      * @param weights new Weights for the net
      */
-    public void putWeights(List<Double> weights) {
+    public void putWeights(double[] weights) {
         int weightIndex = 0;
 
         for (NeuronLayer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                List<Double> neuronWeights = neuron.getWeights();
-                for (int i = 0; i < neuronWeights.size(); i++) {
-                    neuron.setWeight(i, weights.get(weightIndex));
-                    weightIndex++;
-                }
-            }
+            double[] layerWeights = layer.getWeights();
+            System.arraycopy(weights, weightIndex, layerWeights, 0, layerWeights.length);
+            weightIndex += layerWeights.length;
         }
     }
 
@@ -70,14 +72,24 @@ public class NeuralNet implements Serializable {
         int weights = 0;
 
         for (NeuronLayer layer : layers) {
-            for (Neuron neuron : layer.getNeurons()) {
-                weights += neuron.getWeights().size();
-            }
+            weights += layer.getWeights().length;
         }
 
         return weights;
     }
 
+    public List<NeuronLayer> getLayers() {
+        return layers;
+    }
+
+    public int getNumInputs() {
+        return numInputs;
+    }
+
+    public int getNumOutputs() {
+        return layers.isEmpty() ? 0 : layers.get(layers.size() - 1).getNumNeurons();
+    }
+
     /**
      * Calculates the output values for an input
      *
@@ -86,37 +98,60 @@ public class NeuralNet implements Serializable {
      */
     public List<Double> update(List<Double> inputs) {
         List<Double> outputs = new ArrayList<>();
-        double netInput;
-        int neuronInputs;
         if (inputs.size() != numInputs) {
             return outputs;
         }
 
-        for (int i = 0; i < layers.size(); i++) {
-            if (i > 0) {
-//                Collections.copy(inputs, outputs);
-                inputs.clear();
-                for (double val : outputs) {
-                    inputs.add(val);
-                }
-            }
-            outputs.clear();
+        double[] in = new double[numInputs];
+        double[] out = new double[getNumOutputs()];
+        for (int i = 0; i < numInputs; i++) {
+            in[i] = inputs.get(i);
+        }
 
-            for (Neuron neuron : layers.get(i).getNeurons()) {
-                netInput = 0;
-                neuronInputs = neuron.getNumInputs();
+        update(in, out);
+        for (double val : out) {
+            outputs.add(val);
+        }
 
-                for (int j = 0; j < neuron.getWeights().size(); j++) {
-                    if (j < neuronInputs) {
-                        netInput += neuron.getWeight(j) * inputs.get(j);
-                    }
-                }
+        return outputs;
+    }
 
-                netInput += neuron.getWeight(neuronInputs - 1) * NetSettings.BIAS;
-                outputs.add(Helper.sigmoid(netInput, NetSettings.ACTIVATION_RESPONSE));
+    /**
+     * Calculates the output values for an input without allocating anything
+     *
+     * @param in  inputs for the net, at least as many as the net has inputs
+     * @param out receives the output of the net, at least as many as the net has outputs
+     */
+    public void update(double[] in, double[] out) {
+        int neuronInputs, stride, offset, numNeurons;
+        double[] input = in;
+        double[] output;
+
+        if (activations == null) {
+            activations = new double[layers.size()][];
+            for (int i = 0; i < layers.size(); i++) {
+                activations[i] = new double[layers.get(i).getNumNeurons()];
             }
+            kernel = NetKernel.get();
         }
 
-        return outputs;
+        for (int i = 0; i < layers.size(); i++) {
+            NeuronLayer layer = layers.get(i);
+            double[] weights = layer.getWeights();
+            output = (i == layers.size() - 1) ? out : activations[i];
+            neuronInputs = layer.getInputsPerNeuron();
+            stride = neuronInputs + 1;
+            numNeurons = layer.getNumNeurons();
+
+            for (int n = 0; n < numNeurons; n++) {
+                offset = n * stride;
+                //The bias is weighted with the last input weight, as it always has been for the trained populations
+                output[n] = kernel.dot(weights, offset, input, neuronInputs)
+                        + weights[offset + neuronInputs - 1] * NetSettings.BIAS;
+            }
+            kernel.sigmoid(output, 0, numNeurons, NetSettings.ACTIVATION_RESPONSE);
+
+            input = output;
+        }
     }
 }
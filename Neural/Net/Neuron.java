@@ -1,37 +1,52 @@
 package Neural.Net;
 
-import Help.Helper;
-
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * A single neuron. Its weights are a slice of the contiguous weight array of its layer, the last weight of the
+ * slice belongs to the bias.
+ */
 public class Neuron implements Serializable {
 
     private int numInputs;
-    private List<Double> weights;
-
-    public Neuron(int numInputs) {
+    private double[] weights;
+    private int offset;
+
+    /**
+     * @param numInputs number of inputs of the neuron
+     * @param weights   weight array of the layer the neuron belongs to
+     * @param offset    index of the first weight of this neuron in the layer array
+     */
+    public Neuron(int numInputs, double[] weights, int offset) {
         this.numInputs = numInputs;
-        weights = new ArrayList<>();
-        for (int i = 0; i < numInputs + 1; i++) {
-            weights.add(Helper.randomDouble());
-        }
+        this.weights = weights;
+        this.offset = offset;
     }
 
     public int getNumInputs() {
         return numInputs;
     }
 
-    public List<Double> getWeights() {
-        return weights;
+    /**
+     * @return number of weights of the neuron including the bias weight
+     */
+    public int getNumWeights() {
+        return numInputs + 1;
+    }
+
+    /**
+     * @return a copy of the weights of this neuron
+     */
+    public double[] getWeights() {
+        return Arrays.copyOfRange(weights, offset, offset + numInputs + 1);
     }
 
     public double getWeight(int index) {
-        return weights.get(index);
+        return weights[offset + index];
     }
 
     public void setWeight(int index, double value) {
-        weights.set(index, value);
+        weights[offset + index] = value;
     }
 }
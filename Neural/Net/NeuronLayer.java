@@ -1,20 +1,34 @@
 package Neural.Net;
 
+import Help.Helper;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A layer of neurons. All weights of the layer are stored in one contiguous array, neuron by neuron, each neuron
+ * taking inputsPerNeuron + 1 entries.
+ */
 public class NeuronLayer implements Serializable {
 
     private int numNeurons;
+    private int inputsPerNeuron;
+    private double[] weights;
     private List<Neuron> neurons;
 
     public NeuronLayer(int numNeurons, int inputsPerNeuron) {
         this.numNeurons = numNeurons;
+        this.inputsPerNeuron = inputsPerNeuron;
+        weights = new double[numNeurons * (inputsPerNeuron + 1)];
         neurons = new ArrayList<>();
 
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Helper.randomDouble();
+        }
+
         for (int i = 0; i < numNeurons; i++) {
-            neurons.add(new Neuron(inputsPerNeuron));
+            neurons.add(new Neuron(inputsPerNeuron, weights, i * (inputsPerNeuron + 1)));
         }
     }
 
@@ -22,6 +36,19 @@ public class NeuronLayer implements Serializable {
         return numNeurons;
     }
 
+    public int getInputsPerNeuron() {
+        return inputsPerNeuron;
+    }
+
+    /**
+     * Gives direct access to the weights of the layer, changes to the array change the neurons
+     *
+     * @return contiguous weights of all neurons in this layer
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
     public List<Neuron> getNeurons() {
         return neurons;
     }
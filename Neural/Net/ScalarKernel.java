@@ -0,0 +1,37 @@
+package Neural.Net;
+
+import Help.Helper;
+
+/**
+ * Plain Java loops and the exact sigmoid of {@link Helper#sigmoid(double, double)}
+ */
+public final class ScalarKernel implements NetKernel {
+
+    public static final ScalarKernel INSTANCE = new ScalarKernel();
+
+    private ScalarKernel() {
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void multiplyAdd(double[] acc, int accOffset, double[] a, int aOffset, double[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            acc[accOffset + i] += a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    @Override
+    public void sigmoid(double[] values, int from, int to, double response) {
+        for (int i = from; i < to; i++) {
+            values[i] = Helper.sigmoid(values[i], response);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+import Game.SensorSettings;
+import Game.SnakeSimulation;
+import Genetic.Algorithm.GeneSettings;
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Genetic.Algorithm.MappedPopulation;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+import Training.BatchEvaluator;
+import Training.CachingEvaluator;
+import Training.Checkpoint;
+import Training.CheckpointWriter;
+import Training.EpisodeEvaluator;
+import Training.EvaluationWorker;
+import Training.Evaluator;
+import Training.FitnessCache;
+import Training.IslandModel;
+import Training.ParallelEvaluator;
+import Training.RemoteEvaluator;
+import Training.SequentialEvaluator;
+import Training.SteadyStateEvolution;
+import Training.WorkStealingEvaluator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless training entry point. Plays every game on a {@link SnakeSimulation} without creating any window, so it
+ * also runs with java.awt.headless=true.
+ * <p>
+ * A run is determined by its seed: the population is initialized from it, and every generation draws selection,
+ * crossover, mutation and apple placement from a generator derived from the seed and the generation number. The
+ * fitness cache is the exception: it lives in memory only, so with FITNESS_CACHE_SIZE above 0 a resumed run and a
+ * replay score the genomes the cache skipped anew and drift away from the original run.
+ * <pre>
+ * java Train [seed]              trains, with a random seed if none is given or the saved population's seed
+ * java Train replay &lt;index&gt;      re-scores the saved population exactly like training did and prints one genome
+ * java Train worker &lt;host&gt; &lt;port&gt; plays games for a coordinator started with COORDINATOR_PORT
+ * </pre>
+ */
+public class Train {
+    // Inputs the game feeds into the NN, set by the sensors in SensorSettings
+    static final int NUM_INPUTS = SensorSettings.getNumInputs();
+    // Outputs of the NN, one per direction
+    static final int NUM_OUTPUTS = 4;
+    // The number of hidden layers in the NN
+    static final int NUM_HIDDENLAYERS = 2;
+    // Neurons per hidden layer, the net needs at least one per input
+    static final int NEURONS_PER_H_LAYER = Math.max(8, NUM_INPUTS);
+    // Probability of a mutation
+    static final double MUTATION_RATE = 0.5;
+    // Defines how the child genomes are put together 0.7 = 70% Genome1 / 30% Genome2
+    static final double CROSS_RATE = 0.7;
+    // How many snakes per generation
+    static final int POPULATION_SIZE = 20;
+    // Maximum number of steps a snake may take in one game
+    static final int MAX_ACTIONS = 500;
+    // Number of threads the population is evaluated on
+    static final int THREADS = Runtime.getRuntime().availableProcessors();
+    // If set to true, a work stealing fork-join pool is used instead of a fixed thread pool
+    static final boolean FORK_JOIN = true;
+    // If set to true, the games are scheduled longest expected game first on per-thread deques with work stealing
+    static final boolean LONGEST_FIRST = false;
+    // If above 0, the games are played on one thread in batches of this many snakes stepped together
+    static final int BATCH_SIZE = 0;
+    // If set to true, the population is kept off-heap in a memory-mapped file, which also replaces the checkpoint
+    static final boolean MAPPED_POPULATION = false;
+    // Every how many generations a full checkpoint is written, the generations in between only save what changed
+    static final int FULL_CHECKPOINT_INTERVAL = 10;
+    // How many chromosomes the fitness cache remembers, 0 plays every genome in every generation. The cache is not
+    // saved, so above 0 resuming or replaying a run no longer gives the same fitness as the run itself
+    static final int FITNESS_CACHE_SIZE = 0;
+    // If set to true, cached genomes are played again and get the average of all their games
+    static final boolean AVERAGE_FITNESS = false;
+    // Games every genome plays per generation, its fitness is their mean
+    static final int EPISODES = 3;
+    // A game ends after this many steps without an apple, 0 lets snakes run until MAX_ACTIONS
+    static final int STALL_ACTIONS = 200;
+    // If set to true, a genome stops playing its episodes once it can no longer reach the elites
+    static final boolean RACING = true;
+    // Points a remaining game of a genome is assumed to score at most above its best game so far, two apples
+    static final int RACING_MARGIN = 10;
+
+    // Number of islands that each evolve a population of POPULATION_SIZE on their own thread, 1 trains one population
+    static final int ISLANDS = 1;
+    // Which islands exchange their fittest genomes
+    static final IslandModel.Topology TOPOLOGY = IslandModel.Topology.RING;
+    // Every how many generations an island sends migrants
+    static final int MIGRATION_INTERVAL = 5;
+    // Number of genomes an island sends to each neighbour
+    static final int MIGRANTS = 2;
+
+    // If set to true, every ended game breeds a new child right away instead of waiting for the whole generation
+    static final boolean STEADY_STATE = false;
+
+    // If above 0, the games are played by worker processes that connect to this port
+    static final int COORDINATOR_PORT = 0;
+    // Genomes sent to a worker at once
+    static final int REMOTE_BATCH_SIZE = 5;
+    // Milliseconds a worker gets for one batch before its batch is sent to another worker
+    static final long REMOTE_TIMEOUT = 30000;
+
+    // Weights of the fittest genome of the latest scored generation, null before the first one, read by the game window
+    static volatile double[] bestWeights;
+
+    static final FitnessCache CACHE = FITNESS_CACHE_SIZE > 0 ? new FitnessCache(FITNESS_CACHE_SIZE, AVERAGE_FITNESS) : null;
+
+    public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("replay")) {
+            replay(Integer.parseInt(args[1]));
+            return;
+        }
+        if (args.length == 3 && args[0].equals("worker")) {
+            try {
+                EvaluationWorker.run(args[1], Integer.parseInt(args[2]), THREADS);
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+            return;
+        }
+
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        if (ISLANDS > 1) {
+            islands(seed);
+            return;
+        }
+        if (STEADY_STATE) {
+            steadyState(seed);
+            return;
+        }
+
+        Evaluator games;
+        if (COORDINATOR_PORT > 0) {
+            games = coordinate();
+        } else if (BATCH_SIZE > 0) {
+            games = new BatchEvaluator(createNet(), BATCH_SIZE, MAX_ACTIONS, STALL_ACTIONS);
+        } else if (LONGEST_FIRST) {
+            games = new WorkStealingEvaluator(THREADS, Train::createNet, Train::play);
+        } else {
+            games = new ParallelEvaluator(THREADS, FORK_JOIN, Train::createNet, Train::play);
+        }
+        EpisodeEvaluator episodes = EPISODES > 1 ? episodes(games) : null;
+        Evaluator evaluator = cached(episodes != null ? episodes : games);
+        try {
+            train(evaluator, games, episodes, seed);
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+
+    /**
+     * @return a net with the topology used for training
+     */
+    static NeuralNet createNet() {
+        return new NeuralNet(NUM_INPUTS, NUM_OUTPUTS, NUM_HIDDENLAYERS, NEURONS_PER_H_LAYER);
+    }
+
+    /**
+     * @return evaluator that has the games played by workers connecting to COORDINATOR_PORT
+     */
+    static RemoteEvaluator coordinate() {
+        try {
+            return new RemoteEvaluator(COORDINATOR_PORT, REMOTE_BATCH_SIZE, REMOTE_TIMEOUT,
+                    NUM_INPUTS, NUM_OUTPUTS, NUM_HIDDENLAYERS, NEURONS_PER_H_LAYER, MAX_ACTIONS, STALL_ACTIONS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plays one headless game with random numbers from the generator of the calling thread
+     *
+     * @param brain net that steers the snake
+     * @return reached fitness
+     */
+    static int play(NeuralNet brain) {
+        return new SnakeSimulation(brain).play(MAX_ACTIONS, STALL_ACTIONS);
+    }
+
+    /**
+     * @param games plays one game per genome
+     * @return evaluator that scores every genome by the mean of EPISODES games
+     */
+    static EpisodeEvaluator episodes(Evaluator games) {
+        if (!RACING) {
+            return new EpisodeEvaluator(games, EPISODES);
+        }
+        return new EpisodeEvaluator(games, EPISODES, GeneSettings.NUM_ELITES, SnakeSimulation.maxFitness(MAX_ACTIONS), RACING_MARGIN);
+    }
+
+    /**
+     * @param evaluator scores the genomes
+     * @return evaluator that takes the fitness of chromosomes in CACHE from there, the given one if there is no cache
+     */
+    static Evaluator cached(Evaluator evaluator) {
+        return CACHE != null ? new CachingEvaluator(evaluator, CACHE) : evaluator;
+    }
+
+    /**
+     * Runs the training loop and saves the population after every generation
+     *
+     * @param evaluator scores the population of every generation
+     * @param games     evaluator that plays the games, wrapped by evaluator for episodes and the cache
+     * @param episodes  evaluator of the episodes wrapped by evaluator, null with a single episode
+     * @param seed      seed of a new run, a loaded population continues with its own seed
+     */
+    static void train(Evaluator evaluator, Evaluator games, EpisodeEvaluator episodes, long seed) {
+        MappedPopulation store = MAPPED_POPULATION ? openStore() : null;
+        GeneticAlgorithm genetics = store != null ? resume(store) : load();
+
+        if (genetics == null) {
+            Helper.setSeed(seed);
+            int chromoLength = createNet().getNumberOfWeights();
+            if (store != null) {
+                genetics = new GeneticAlgorithm(store, POPULATION_SIZE, chromoLength, MUTATION_RATE, CROSS_RATE);
+            } else {
+                genetics = new GeneticAlgorithm(POPULATION_SIZE, chromoLength, MUTATION_RATE, CROSS_RATE);
+            }
+            genetics.setSeed(seed);
+        }
+        System.out.println("Seed: " + genetics.getSeed());
+
+
+        List<Genome> population = genetics.getPopulation();
+
+        double averageFitness = 0;
+        double minAverage = Integer.MAX_VALUE;
+        double bestFitness = genetics.getAverageFitness();
+
+        //Checkpoints are written in the background while the next generation is evaluated
+        CheckpointWriter checkpoints = new CheckpointWriter(checkpointFile(), FULL_CHECKPOINT_INTERVAL,
+                NUM_INPUTS, NUM_OUTPUTS, NUM_HIDDENLAYERS, NEURONS_PER_H_LAYER);
+
+        try {
+            for (int i = genetics.getGeneration(); averageFitness < minAverage; i++) {
+                Helper.setSeed(Helper.deriveSeed(genetics.getSeed(), i));
+                evaluator.evaluate(population);
+                publishBest(population);
+
+                population = genetics.epoch(population, false);
+                averageFitness = genetics.getAverageFitness();
+                System.out.println("Generation " + i + ": Fitness: " + averageFitness + " Best: " + genetics.getBestFitness() + "\t Overall Best: " + bestFitness);
+                if (averageFitness > bestFitness) {
+                    bestFitness = averageFitness;
+                    System.out.println("New Best Population!");
+                }
+                if (CACHE != null && CACHE.getHitRate() > 0) {
+                    System.out.printf("Fitness cache: %d chromosomes, hit rate %.1f%%%n", CACHE.size(), 100 * CACHE.getHitRate());
+                }
+                if (episodes != null && episodes.getPruned() > 0) {
+                    System.out.println("Episodes skipped by racing: " + episodes.getPruned());
+                }
+                if (games instanceof WorkStealingEvaluator) {
+                    printBalance((WorkStealingEvaluator) games);
+                }
+                if (games instanceof RemoteEvaluator && ((RemoteEvaluator) games).getRedispatched() > 0) {
+                    System.out.println("Batches sent again after a worker was lost: " + ((RemoteEvaluator) games).getRedispatched());
+                }
+                if (checkpoints.getCoalesced() > 0) {
+                    System.out.println("Checkpoints skipped while the disk was busy: " + checkpoints.getCoalesced());
+                }
+
+                if (store != null) {
+                    ((MappedPopulation) population).commit(genetics.getGeneration(), genetics.getSeed());
+                } else {
+                    checkpoints.submit(genetics);
+                }
+            }
+        } finally {
+            checkpoints.close();
+        }
+    }
+
+    /**
+     * Makes a copy of the weights of the fittest genome of a scored population available as bestWeights
+     */
+    static void publishBest(List<Genome> population) {
+        Genome best = population.get(0);
+        for (Genome genome : population) {
+            if (genome.getFitness() > best.getFitness()) {
+                best = genome;
+            }
+        }
+        bestWeights = best.getWeights().clone();
+    }
+
+    /**
+     * Prints how busy each worker of a work stealing evaluator was so far
+     */
+    static void printBalance(WorkStealingEvaluator games) {
+        StringBuilder balance = new StringBuilder(String.format("Workers busy: %.1f%%", 100 * games.getUtilization()));
+        for (int i = 0; i < games.getThreads(); i++) {
+            balance.append(String.format(" [%d: %d ms busy, %d ms idle, %d stolen]", i, games.getBusyNanos(i) / 1_000_000,
+                    games.getIdleNanos(i) / 1_000_000, games.getSteals(i)));
+        }
+        System.out.println(balance);
+    }
+
+    /**
+     * Evolves ISLANDS populations in parallel, each island scores its genomes on its own thread. Island runs are not
+     * saved, since migration makes them depend on the scheduling anyway.
+     *
+     * @param seed seed of the run
+     */
+    static void islands(long seed) {
+        int chromoLength = createNet().getNumberOfWeights();
+        IslandModel islands = new IslandModel(ISLANDS, TOPOLOGY, MIGRATION_INTERVAL, MIGRANTS,
+                () -> new GeneticAlgorithm(POPULATION_SIZE, chromoLength, MUTATION_RATE, CROSS_RATE),
+                () -> {
+                    Evaluator games = new SequentialEvaluator(createNet(), Train::play);
+                    Evaluator evaluator = EPISODES > 1 ? episodes(games) : games;
+                    //Islands score at the same time, so every island needs a cache of its own
+                    return FITNESS_CACHE_SIZE > 0 ? new CachingEvaluator(evaluator, new FitnessCache(FITNESS_CACHE_SIZE, AVERAGE_FITNESS)) : evaluator;
+                });
+        islands.setListener((island, genetics) -> System.out.println("Island " + island + " Generation " + (genetics.getGeneration() - 1)
+                + ": Fitness: " + genetics.getAverageFitness() + " Best: " + genetics.getBestFitness()));
+
+        System.out.println("Seed: " + seed);
+        islands.run(seed, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Evolves one population without generations on THREADS threads. Such runs are not saved, since which child is
+     * bred from which population depends on the scheduling.
+     *
+     * @param seed seed of the run
+     */
+    static void steadyState(long seed) {
+        Helper.setSeed(seed);
+        GeneticAlgorithm genetics = new GeneticAlgorithm(POPULATION_SIZE, createNet().getNumberOfWeights(), MUTATION_RATE, CROSS_RATE);
+        genetics.setSeed(seed);
+        SteadyStateEvolution evolution = new SteadyStateEvolution(genetics, THREADS, Train::createNet, Train::play);
+        evolution.setListener(population -> {
+            publishBest(population.getPopulation());
+            System.out.printf("Games %d: Fitness: %s Best: %s Children kept: %d Workers busy: %.1f%%%n", evolution.getEvaluations(),
+                    population.getAverageFitness(), population.getBestFitness(), evolution.getReplacements(), 100 * evolution.getUtilization());
+        });
+
+        System.out.println("Seed: " + seed);
+        evolution.run(seed, Long.MAX_VALUE);
+    }
+
+    /**
+     * Scores the saved population again, with the same random numbers its generation got in training, and prints the
+     * fitness of one genome. Cached genomes of the training run are played here, so only runs without the fitness cache
+     * replay exactly.
+     *
+     * @param index position of the genome in the saved population
+     */
+    static void replay(int index) {
+        GeneticAlgorithm genetics = MAPPED_POPULATION ? resume(openStore()) : load();
+        if (genetics == null) {
+            return;
+        }
+
+        List<Genome> population = new ArrayList<>(genetics.getPopulation().size());
+        for (Genome genome : genetics.getPopulation()) {
+            population.add(new Genome(genome));
+        }
+        //Remote games draw other random numbers than local ones, so they are replayed by workers as well
+        Evaluator games = COORDINATOR_PORT > 0 ? coordinate() : new SequentialEvaluator(createNet(), Train::play);
+        Evaluator evaluator = EPISODES > 1 ? episodes(games) : games;
+
+        Helper.setSeed(Helper.deriveSeed(genetics.getSeed(), genetics.getGeneration()));
+        try {
+            evaluator.evaluate(population);
+        } finally {
+            evaluator.shutdown();
+        }
+
+        System.out.println("Generation " + genetics.getGeneration() + " Genome " + index + ": Fitness: " + population.get(index).getFitness());
+    }
+
+    /**
+     * @return file the population is saved in
+     */
+    static Path checkpointFile() {
+        return Paths.get(POPULATION_SIZE + " Pop " + NUM_HIDDENLAYERS + "x" + NEURONS_PER_H_LAYER + ".data");
+    }
+
+    /**
+     * @return the off-heap population file, created if it does not exist yet
+     */
+    static MappedPopulation openStore() {
+        Path file = Paths.get(POPULATION_SIZE + " Pop " + NUM_HIDDENLAYERS + "x" + NEURONS_PER_H_LAYER + ".population");
+        try {
+            return MappedPopulation.open(file, POPULATION_SIZE, createNet().getNumberOfWeights());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param store off-heap population file
+     * @return the last committed population of the file or null if it is empty
+     */
+    static GeneticAlgorithm resume(MappedPopulation store) {
+        if (store.isEmpty()) {
+            return null;
+        }
+        GeneticAlgorithm genetics = new GeneticAlgorithm(store, MUTATION_RATE, CROSS_RATE, store.getGeneration());
+        genetics.setSeed(store.getSeed());
+        return genetics;
+    }
+
+    /**
+     * @return the saved population or null if there is none
+     * @throws IllegalStateException if the saved population cannot be read or was saved for a different net, so a new
+     *                               run does not overwrite it
+     */
+    static GeneticAlgorithm load() {
+        Path file = checkpointFile();
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        Checkpoint checkpoint;
+        try {
+            checkpoint = Checkpoint.read(file);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException(file + " cannot be read, move it away to start a new run", e);
+        }
+        if (!checkpoint.hasTopology(NUM_INPUTS, NUM_OUTPUTS, NUM_HIDDENLAYERS, NEURONS_PER_H_LAYER)) {
+            throw new IllegalStateException(file + " was saved for a different net, move it away to start a new run");
+        }
+        return checkpoint.getGenetics();
+    }
+}
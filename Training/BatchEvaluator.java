@@ -0,0 +1,78 @@
+package Training;
+
+import Game.SnakeVecEnv;
+import Genetic.Algorithm.Genome;
+import Neural.Net.BatchNet;
+import Neural.Net.NeuralNet;
+
+import java.util.List;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Scores the genomes on the calling thread with a {@link SnakeVecEnv}: a batch of games runs side by side and one
+ * {@link BatchNet} update steers all of them. When a game ends, the next genome takes its place in the batch.
+ * <p>
+ * Each genome plays the headless game of SnakeSimulation, with the same random numbers the other evaluators give it,
+ * so all evaluators reach the same fitness.
+ */
+public class BatchEvaluator implements Evaluator {
+
+    private BatchNet nets;
+    private SnakeVecEnv games;
+
+    /**
+     * @param shape        net whose topology is used for every game
+     * @param batchSize    number of games played side by side
+     * @param maxActions   maximum number of steps of a game
+     * @param stallActions maximum number of steps between two apples, 0 for no limit
+     */
+    public BatchEvaluator(NeuralNet shape, int batchSize, int maxActions, int stallActions) {
+        this.nets = new BatchNet(shape, batchSize);
+        this.games = new SnakeVecEnv(nets, maxActions, stallActions);
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        Genome[] playing = new Genome[games.getSize()];
+        int next = 0;
+        int running = 0;
+
+        for (int game = 0; game < playing.length; game++) {
+            next = load(population, randoms, next, game, playing);
+            if (playing[game] != null) {
+                running++;
+            }
+        }
+
+        while (running > 0) {
+            int ended = games.step();
+            for (int i = 0; i < ended; i++) {
+                int game = games.getEnded(i);
+                playing[game].setFitness(games.getFitness(game));
+                next = load(population, randoms, next, game, playing);
+                if (playing[game] == null) {
+                    running--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the game of the next genome in place of the given game, or leaves the game empty after the last genome
+     *
+     * @return position of the genome after it
+     */
+    private int load(List<Genome> population, List<SplittableGenerator> randoms, int next, int game, Genome[] playing) {
+        playing[game] = null;
+
+        if (next < population.size()) {
+            Genome genome = population.get(next);
+            nets.putWeights(game, genome.getWeights());
+            //The generator SnakeSimulation splits off the generator of the genome
+            games.reset(game, randoms.get(next).split());
+            playing[game] = genome;
+            next++;
+        }
+        return next;
+    }
+}
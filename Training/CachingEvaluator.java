@@ -0,0 +1,56 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Takes the fitness of already scored chromosomes from a {@link FitnessCache} and has only the other genomes scored by
+ * the wrapped evaluator. The cache is only touched on the calling thread and the fitness of the played genomes is
+ * recorded after all games, so hits and averages do not depend on the scheduling. Every genome keeps the generator it
+ * was given, so a hit does not change the games of the genomes after it.
+ */
+public class CachingEvaluator implements Evaluator {
+
+    private Evaluator games;
+    private FitnessCache cache;
+
+    /**
+     * @param games scores the genomes that are not cached
+     * @param cache cache of already scored chromosomes
+     */
+    public CachingEvaluator(Evaluator games, FitnessCache cache) {
+        this.games = games;
+        this.cache = cache;
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        List<Genome> played = new ArrayList<>(population.size());
+        List<SplittableGenerator> playedRandoms = new ArrayList<>(population.size());
+        long[] hashes = new long[population.size()];
+
+        for (int i = 0; i < population.size(); i++) {
+            Genome genome = population.get(i);
+            hashes[played.size()] = FitnessCache.hash(genome);
+            if (!cache.apply(hashes[played.size()], genome)) {
+                played.add(genome);
+                playedRandoms.add(randoms.get(i));
+            }
+        }
+
+        if (!played.isEmpty()) {
+            games.evaluate(played, playedRandoms);
+        }
+        for (int i = 0; i < played.size(); i++) {
+            cache.record(hashes[i], played.get(i));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        games.shutdown();
+    }
+}
@@ -0,0 +1,349 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary checkpoint of a training run.
+ * <p>
+ * Layout, all values little-endian:
+ * <pre>
+ * int    magic "SNKG", int version
+ * int    numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer
+ * int    populationSize, chromoLength
+ * double mutationRate, crossRate
+ * int    generation
+ * long   seed (together with the generation the complete random state of the run)
+ * double totalFitness, bestFitness, worstFitness, averageFitness
+ * int    fittestGenome
+ * then per genome: double fitness, double[chromoLength] weights
+ * </pre>
+ * A delta checkpoint in file.delta only stores the genomes that are not part of the full checkpoint it is based on:
+ * <pre>
+ * int    magic "SNKD", int version
+ * int    baseGeneration, generation
+ * long   seed
+ * double totalFitness, bestFitness, worstFitness, averageFitness
+ * int    fittestGenome, populationSize, chromoLength
+ * then per genome: int baseIndex, double fitness, and double[chromoLength] weights if baseIndex is -1
+ * </pre>
+ * {@link #read(Path)} applies the delta when it belongs to the full checkpoint and ignores it otherwise.
+ */
+public class Checkpoint {
+
+    public static final int MAGIC = 0x474B4E53;
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * 4 + 4 * 4 + 2 * 4 + 2 * 8 + 4 + 8 + 4 * 8 + 4;
+    public static final int DELTA_MAGIC = 0x444B4E53;
+    private static final int DELTA_HEADER_BYTES = 2 * 4 + 2 * 4 + 8 + 4 * 8 + 3 * 4;
+
+    private int numInputs;
+    private int numOutputs;
+    private int numHiddenLayers;
+    private int neuronsPerHiddenLayer;
+    private GeneticAlgorithm genetics;
+
+    /**
+     * @param genetics population and settings to save
+     */
+    public Checkpoint(GeneticAlgorithm genetics, int numInputs, int numOutputs, int numHiddenLayers, int neuronsPerHiddenLayer) {
+        this.genetics = genetics;
+        this.numInputs = numInputs;
+        this.numOutputs = numOutputs;
+        this.numHiddenLayers = numHiddenLayers;
+        this.neuronsPerHiddenLayer = neuronsPerHiddenLayer;
+    }
+
+    /**
+     * Takes a snapshot of the population that stays unchanged while training goes on. The snapshot shares the weight
+     * arrays with the population, which is safe because epoch never changes the weights of a genome once it is part
+     * of a population, it only mutates new children. Only the fitness values, which change, are copied.
+     *
+     * @param genetics population to take a snapshot of
+     * @return checkpoint of the snapshot
+     */
+    public static Checkpoint snapshot(GeneticAlgorithm genetics, int numInputs, int numOutputs, int numHiddenLayers, int neuronsPerHiddenLayer) {
+        List<Genome> population = new ArrayList<>(genetics.getPopulation().size());
+        for (Genome genome : genetics.getPopulation()) {
+            population.add(new Genome(genome.getWeights(), genome.getFitness()));
+        }
+
+        GeneticAlgorithm snapshot = new GeneticAlgorithm(population, genetics.getMutationRate(), genetics.getCrossRate(),
+                genetics.getGeneration());
+        snapshot.setSeed(genetics.getSeed());
+        snapshot.setStats(genetics.getTotalFitness(), genetics.getBestFitness(), genetics.getWorstFitness(),
+                genetics.getAverageFitness(), genetics.getFittestGenome());
+        return new Checkpoint(snapshot, numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer);
+    }
+
+    /**
+     * @param file full checkpoint file
+     * @return the file a delta checkpoint based on file is saved in
+     */
+    public static Path deltaFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".delta");
+    }
+
+    /**
+     * Writes the checkpoint to file.new and then moves it over file, so file always holds a complete checkpoint
+     *
+     * @param file where the checkpoint is saved
+     * @throws IOException if writing fails, file is untouched then
+     */
+    public void write(Path file) throws IOException {
+        Path newFile = file.resolveSibling(file.getFileName() + ".new");
+        List<Genome> population = genetics.getPopulation();
+        int chromoLength = genetics.getChromoLength();
+
+        try (FileChannel channel = FileChannel.open(newFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION);
+            header.putInt(numInputs).putInt(numOutputs).putInt(numHiddenLayers).putInt(neuronsPerHiddenLayer);
+            header.putInt(population.size()).putInt(chromoLength);
+            header.putDouble(genetics.getMutationRate()).putDouble(genetics.getCrossRate());
+            header.putInt(genetics.getGeneration());
+            header.putLong(genetics.getSeed());
+            header.putDouble(genetics.getTotalFitness()).putDouble(genetics.getBestFitness());
+            header.putDouble(genetics.getWorstFitness()).putDouble(genetics.getAverageFitness());
+            header.putInt(genetics.getFittestGenome());
+            header.flip();
+            writeFully(channel, header);
+
+            ByteBuffer record = ByteBuffer.allocateDirect(8 * (chromoLength + 1)).order(ByteOrder.LITTLE_ENDIAN);
+            for (Genome genome : population) {
+                record.clear();
+                record.putDouble(genome.getFitness());
+                record.asDoubleBuffer().put(genome.getWeights(), 0, chromoLength);
+                record.clear();
+                writeFully(channel, record);
+            }
+            channel.force(true);
+        }
+
+        Files.move(newFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the genomes that changed since a full checkpoint to {@link #deltaFile(Path)}, again through a .new file
+     *
+     * @param file        file of the full checkpoint
+     * @param base        the full checkpoint saved in file
+     * @param baseIndexes position of every genome of the base population, looked up by content
+     * @throws IOException if writing fails, the old delta is untouched then
+     */
+    public void writeDelta(Path file, Checkpoint base, Map<Genome, Integer> baseIndexes) throws IOException {
+        Path deltaFile = deltaFile(file);
+        Path newFile = deltaFile.resolveSibling(deltaFile.getFileName() + ".new");
+        List<Genome> population = genetics.getPopulation();
+        int chromoLength = genetics.getChromoLength();
+
+        try (FileChannel channel = FileChannel.open(newFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(DELTA_MAGIC).putInt(VERSION);
+            header.putInt(base.genetics.getGeneration()).putInt(genetics.getGeneration());
+            header.putLong(genetics.getSeed());
+            header.putDouble(genetics.getTotalFitness()).putDouble(genetics.getBestFitness());
+            header.putDouble(genetics.getWorstFitness()).putDouble(genetics.getAverageFitness());
+            header.putInt(genetics.getFittestGenome()).putInt(population.size()).putInt(chromoLength);
+            header.flip();
+            writeFully(channel, header);
+
+            ByteBuffer record = ByteBuffer.allocateDirect(4 + 8 * (chromoLength + 1)).order(ByteOrder.LITTLE_ENDIAN);
+            for (Genome genome : population) {
+                Integer baseIndex = baseIndexes.get(genome);
+                record.clear();
+                record.putInt(baseIndex == null ? -1 : baseIndex);
+                record.putDouble(genome.getFitness());
+                if (baseIndex == null) {
+                    for (int i = 0; i < chromoLength; i++) {
+                        record.putDouble(genome.getWeight(i));
+                    }
+                }
+                record.flip();
+                writeFully(channel, record);
+            }
+            channel.force(true);
+        }
+
+        Files.move(newFile, deltaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint written by {@link #write(Path)} and applies its delta checkpoint if there is one
+     *
+     * @param file checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is no checkpoint of this version
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        Checkpoint checkpoint = readFull(file);
+        Path deltaFile = deltaFile(file);
+        if (Files.exists(deltaFile)) {
+            checkpoint = readDelta(deltaFile, checkpoint);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return the checkpoint the delta leads to or base if the delta belongs to a different full checkpoint
+     */
+    private static Checkpoint readDelta(Path deltaFile, Checkpoint base) throws IOException {
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+
+            if (header.getInt() != DELTA_MAGIC || header.getInt() != VERSION) {
+                throw new IOException(deltaFile + " is no delta checkpoint of version " + VERSION);
+            }
+            if (header.getInt() != base.genetics.getGeneration()) {
+                return base;
+            }
+
+            int generation = header.getInt();
+            long seed = header.getLong();
+            double totalFitness = header.getDouble();
+            double bestFitness = header.getDouble();
+            double worstFitness = header.getDouble();
+            double averageFitness = header.getDouble();
+            int fittestGenome = header.getInt();
+            int populationSize = header.getInt();
+            int chromoLength = header.getInt();
+
+            List<Genome> basePopulation = base.genetics.getPopulation();
+            List<Genome> population = new ArrayList<>(populationSize);
+            ByteBuffer index = ByteBuffer.allocate(4 + 8).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer weights = ByteBuffer.allocateDirect(8 * chromoLength).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < populationSize; i++) {
+                index.clear();
+                readFully(channel, index);
+                index.flip();
+                int baseIndex = index.getInt();
+                double fitness = index.getDouble();
+
+                if (baseIndex >= 0) {
+                    population.add(new Genome(basePopulation.get(baseIndex).getWeights(), fitness));
+                } else {
+                    weights.clear();
+                    readFully(channel, weights);
+                    weights.flip();
+                    double[] values = new double[chromoLength];
+                    weights.asDoubleBuffer().get(values);
+                    population.add(new Genome(values, fitness));
+                }
+            }
+
+            GeneticAlgorithm genetics = new GeneticAlgorithm(population, base.genetics.getMutationRate(),
+                    base.genetics.getCrossRate(), generation);
+            genetics.setSeed(seed);
+            genetics.setStats(totalFitness, bestFitness, worstFitness, averageFitness, fittestGenome);
+            return new Checkpoint(genetics, base.numInputs, base.numOutputs, base.numHiddenLayers, base.neuronsPerHiddenLayer);
+        }
+    }
+
+    private static Checkpoint readFull(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is no checkpoint");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has checkpoint version " + version + ", expected " + VERSION);
+            }
+
+            int numInputs = header.getInt();
+            int numOutputs = header.getInt();
+            int numHiddenLayers = header.getInt();
+            int neuronsPerHiddenLayer = header.getInt();
+            int populationSize = header.getInt();
+            int chromoLength = header.getInt();
+            double mutationRate = header.getDouble();
+            double crossRate = header.getDouble();
+            int generation = header.getInt();
+            long seed = header.getLong();
+            double totalFitness = header.getDouble();
+            double bestFitness = header.getDouble();
+            double worstFitness = header.getDouble();
+            double averageFitness = header.getDouble();
+            int fittestGenome = header.getInt();
+
+            List<Genome> population = new ArrayList<>(populationSize);
+            ByteBuffer record = ByteBuffer.allocateDirect(8 * (chromoLength + 1)).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < populationSize; i++) {
+                record.clear();
+                readFully(channel, record);
+                record.flip();
+                double fitness = record.getDouble();
+                double[] weights = new double[chromoLength];
+                record.asDoubleBuffer().get(weights);
+                population.add(new Genome(weights, fitness));
+            }
+
+            GeneticAlgorithm genetics = new GeneticAlgorithm(population, mutationRate, crossRate, generation);
+            genetics.setSeed(seed);
+            genetics.setStats(totalFitness, bestFitness, worstFitness, averageFitness, fittestGenome);
+            return new Checkpoint(genetics, numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Checkpoint ends too early");
+            }
+        }
+    }
+
+    /**
+     * @return true if the saved population was trained for a net with this topology
+     */
+    public boolean hasTopology(int numInputs, int numOutputs, int numHiddenLayers, int neuronsPerHiddenLayer) {
+        return this.numInputs == numInputs && this.numOutputs == numOutputs
+                && this.numHiddenLayers == numHiddenLayers && this.neuronsPerHiddenLayer == neuronsPerHiddenLayer;
+    }
+
+    public GeneticAlgorithm getGenetics() {
+        return genetics;
+    }
+
+    public int getNumInputs() {
+        return numInputs;
+    }
+
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    public int getNumHiddenLayers() {
+        return numHiddenLayers;
+    }
+
+    public int getNeuronsPerHiddenLayer() {
+        return neuronsPerHiddenLayer;
+    }
+}
@@ -0,0 +1,130 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes checkpoints on a background thread, so the generation loop does not wait for the disk.
+ * <p>
+ * {@link #submit(GeneticAlgorithm)} only takes a snapshot and returns. If the previous checkpoint is still being
+ * written, the snapshot waits, and a newer snapshot replaces a waiting one, so at most one write is queued. Every
+ * fullInterval-th checkpoint is a full one, the others are deltas that only store the genomes which are not part of
+ * the last full checkpoint.
+ */
+public class CheckpointWriter implements AutoCloseable {
+
+    private Path file;
+    private int fullInterval;
+    private int numInputs;
+    private int numOutputs;
+    private int numHiddenLayers;
+    private int neuronsPerHiddenLayer;
+
+    private ExecutorService writer;
+    private AtomicReference<Checkpoint> pending = new AtomicReference<>();
+    private AtomicInteger coalesced = new AtomicInteger();
+
+    // Only used by the writer thread
+    private Checkpoint lastFull;
+    private Map<Genome, Integer> lastFullIndexes;
+    private int written;
+
+    /**
+     * @param file         file the full checkpoints are saved in, deltas go to {@link Checkpoint#deltaFile(Path)}
+     * @param fullInterval every how many checkpoints a full one is written, 1 for full checkpoints only
+     */
+    public CheckpointWriter(Path file, int fullInterval, int numInputs, int numOutputs, int numHiddenLayers, int neuronsPerHiddenLayer) {
+        this.file = file;
+        this.fullInterval = Math.max(1, fullInterval);
+        this.numInputs = numInputs;
+        this.numOutputs = numOutputs;
+        this.numHiddenLayers = numHiddenLayers;
+        this.neuronsPerHiddenLayer = neuronsPerHiddenLayer;
+
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a snapshot of the population and saves it in the background
+     *
+     * @param genetics population to save
+     */
+    public void submit(GeneticAlgorithm genetics) {
+        Checkpoint snapshot = Checkpoint.snapshot(genetics, numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer);
+
+        Checkpoint replaced = pending.getAndSet(snapshot);
+        if (replaced == null) {
+            writer.execute(this::writePending);
+        } else {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    private void writePending() {
+        Checkpoint checkpoint = pending.getAndSet(null);
+        if (checkpoint == null) {
+            return;
+        }
+
+        try {
+            if (lastFull == null || written % fullInterval == 0) {
+                checkpoint.write(file);
+                Files.deleteIfExists(Checkpoint.deltaFile(file));
+                lastFull = checkpoint;
+                lastFullIndexes = null;
+            } else {
+                if (lastFullIndexes == null) {
+                    lastFullIndexes = indexes(lastFull.getGenetics().getPopulation());
+                }
+                checkpoint.writeDelta(file, lastFull, lastFullIndexes);
+            }
+            written++;
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static Map<Genome, Integer> indexes(List<Genome> population) {
+        Map<Genome, Integer> indexes = new HashMap<>(population.size() * 2);
+        for (int i = 0; i < population.size(); i++) {
+            indexes.putIfAbsent(population.get(i), i);
+        }
+        return indexes;
+    }
+
+    /**
+     * @return number of snapshots that were replaced by a newer one before they were written
+     */
+    public int getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Waits until the last submitted snapshot is written
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Scores every genome by the mean fitness of several games, so a single lucky or unlucky apple placement counts less.
+ * <p>
+ * The games are played in rounds of one game per genome. Every round is one call of the wrapped evaluator on the
+ * genomes still playing, so the rounds run in parallel if the wrapped evaluator does. The game of a genome in a round
+ * draws from a generator split off the genome's own generator once per round, so it only depends on the genome and the
+ * round.
+ * <p>
+ * With racing, after every round the elite cutoff is the lowest mean the elites are already sure to reach, since no
+ * game scores below 0. A genome stops playing once its mean could not reach that cutoff even if each of its remaining
+ * games scored the margin more than its best game so far. It keeps the mean of the games it played, capped at that
+ * optimistic mean, so it still ranks below the elites. Racing makes the fitness of a genome depend on the others.
+ */
+public class EpisodeEvaluator implements Evaluator {
+
+    private Evaluator games;
+    private int episodes;
+    private int elites;
+    private double maxEpisodeFitness;
+    private double margin;
+    private long pruned;
+
+    /**
+     * Plays all games of every genome
+     *
+     * @param games    plays one game per genome
+     * @param episodes number of games per genome
+     */
+    public EpisodeEvaluator(Evaluator games, int episodes) {
+        this(games, episodes, 0, 0, 0);
+    }
+
+    /**
+     * @param games             plays one game per genome
+     * @param episodes          number of games per genome
+     * @param elites            number of genomes that are sure to play all their games, 0 for no racing
+     * @param maxEpisodeFitness highest fitness a single game can reach
+     * @param margin            how much more than its best game so far a genome is assumed to score in a later game
+     */
+    public EpisodeEvaluator(Evaluator games, int episodes, int elites, double maxEpisodeFitness, double margin) {
+        this.games = games;
+        this.episodes = episodes;
+        this.elites = elites;
+        this.maxEpisodeFitness = maxEpisodeFitness;
+        this.margin = margin;
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        int size = population.size();
+        //Shells share the weights of the genomes, so the games do not overwrite the fitness of the population
+        List<Genome> shells = new ArrayList<>(size);
+        for (Genome player : population) {
+            Genome shell = new Genome(player.getWeights(), 0);
+            shell.setExpectedFitness(player.getExpectedFitness());
+            shells.add(shell);
+        }
+        double[] sums = new double[size];
+        double[] best = new double[size];
+        //Number of games of every genome and the mean a genome that left the race is capped at
+        int[] played = new int[size];
+        double[] caps = new double[size];
+        Arrays.fill(caps, Double.POSITIVE_INFINITY);
+
+        List<Genome> racers = new ArrayList<>(size);
+        List<SplittableGenerator> round = new ArrayList<>(size);
+        int[] indexes = new int[size];
+
+        for (int episode = 0; episode < episodes; episode++) {
+            racers.clear();
+            round.clear();
+            for (int i = 0; i < size; i++) {
+                //Split for every genome, so leaving the race does not change the games of the others
+                SplittableGenerator random = randoms.get(i).split();
+                if (caps[i] == Double.POSITIVE_INFINITY) {
+                    indexes[racers.size()] = i;
+                    racers.add(shells.get(i));
+                    round.add(random);
+                }
+            }
+            games.evaluate(racers, round);
+            for (int j = 0; j < racers.size(); j++) {
+                int i = indexes[j];
+                double fitness = shells.get(i).getFitness();
+                sums[i] += fitness;
+                best[i] = Math.max(best[i], fitness);
+                played[i]++;
+                //The games so far tell more about the next game than the parents do
+                shells.get(i).setExpectedFitness(sums[i] / played[i]);
+            }
+            if (elites > 0 && elites < size && episode + 1 < episodes) {
+                race(sums, best, caps, episode + 1);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            population.get(i).setFitness(Math.min(sums[i] / played[i], caps[i]));
+        }
+    }
+
+    /**
+     * Takes the genomes out of the race that cannot reach the elite cutoff any more
+     *
+     * @param sums   fitness of the games of every genome so far
+     * @param best   fitness of the best game of every genome so far
+     * @param caps   optimistic mean of every genome that left the race, receives the ones leaving now
+     * @param rounds number of rounds played so far
+     */
+    private void race(double[] sums, double[] best, double[] caps, int rounds) {
+        double[] sorted = sums.clone();
+        Arrays.sort(sorted);
+        double cutoff = sorted[sorted.length - elites] / episodes;
+
+        for (int i = 0; i < sums.length; i++) {
+            if (caps[i] < Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            double bound = Math.min(maxEpisodeFitness, best[i] + margin);
+            double optimistic = (sums[i] + (episodes - rounds) * bound) / episodes;
+            if (optimistic < cutoff) {
+                caps[i] = optimistic;
+                pruned += episodes - rounds;
+            }
+        }
+    }
+
+    /**
+     * @return number of games not played since the genome had left the race, over all calls
+     */
+    public long getPruned() {
+        return pruned;
+    }
+
+    @Override
+    public void shutdown() {
+        games.shutdown();
+    }
+}
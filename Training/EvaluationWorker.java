@@ -0,0 +1,106 @@
+package Training;
+
+import Game.SensorSettings;
+import Game.SnakeSimulation;
+import Genetic.Algorithm.Genome;
+import Neural.Net.NeuralNet;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Worker process of a {@link RemoteEvaluator}: connects to the coordinator, sets up the nets and the game from its
+ * hello frame and then plays every batch it receives on a {@link ParallelEvaluator} until the coordinator disconnects.
+ * <p>
+ * Every genome of a batch comes with its own seed and its game draws from a generator seeded with it, so any worker
+ * reaches the same fitness for the same genome.
+ */
+public class EvaluationWorker {
+
+    private EvaluationWorker() {
+    }
+
+    /**
+     * Serves one coordinator and returns once it disconnects
+     *
+     * @param host    host of the coordinator
+     * @param port    port of the coordinator
+     * @param threads number of threads the games of a batch are played on
+     * @throws IOException if the connection fails or the coordinator sends something invalid
+     */
+    public static void run(String host, int port, int threads) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            DataInputStream hello = RemoteEvaluator.readFrame(in);
+            if (hello == null || hello.readByte() != RemoteEvaluator.HELLO || hello.readInt() != RemoteEvaluator.MAGIC) {
+                throw new IOException(host + ":" + port + " is not a coordinator");
+            }
+            int version = hello.readInt();
+            if (version != RemoteEvaluator.VERSION) {
+                throw new IOException("Coordinator speaks version " + version + ", expected " + RemoteEvaluator.VERSION);
+            }
+            int numInputs = hello.readInt();
+            int numOutputs = hello.readInt();
+            int numHiddenLayers = hello.readInt();
+            int neuronsPerHiddenLayer = hello.readInt();
+            //The sensors decide the inputs of every SnakeSimulation created below
+            SensorSettings.RAYS = hello.readBoolean();
+            SensorSettings.DIAGONAL_RAYS = hello.readBoolean();
+            int maxActions = hello.readInt();
+            int stallActions = hello.readInt();
+
+            int chromoLength = new NeuralNet(numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer).getNumberOfWeights();
+            Evaluator games = new ParallelEvaluator(threads, true,
+                    () -> new NeuralNet(numInputs, numOutputs, numHiddenLayers, neuronsPerHiddenLayer),
+                    brain -> new SnakeSimulation(brain).play(maxActions, stallActions));
+            System.out.println("Connected to " + host + ":" + port);
+
+            try {
+                DataInputStream frame;
+                while ((frame = RemoteEvaluator.readFrame(in)) != null) {
+                    if (frame.readByte() != RemoteEvaluator.BATCH) {
+                        throw new IOException("Unexpected frame from coordinator");
+                    }
+                    int batchId = frame.readInt();
+                    int count = frame.readInt();
+                    if (frame.readInt() != chromoLength) {
+                        throw new IOException("Chromosomes do not fit the net");
+                    }
+
+                    List<Genome> batch = new ArrayList<>(count);
+                    List<SplittableGenerator> randoms = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        randoms.add(new SplittableRandom(frame.readLong()));
+                        double[] weights = new double[chromoLength];
+                        for (int j = 0; j < chromoLength; j++) {
+                            weights[j] = frame.readDouble();
+                        }
+                        batch.add(new Genome(weights, 0));
+                    }
+
+                    games.evaluate(batch, randoms);
+
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + 8 * count);
+                    DataOutputStream result = new DataOutputStream(bytes);
+                    result.writeInt(batchId);
+                    result.writeInt(count);
+                    for (Genome genome : batch) {
+                        result.writeDouble(genome.getFitness());
+                    }
+                    RemoteEvaluator.writeFrame(out, RemoteEvaluator.RESULT, bytes.toByteArray());
+                }
+            } finally {
+                games.shutdown();
+            }
+        } catch (EOFException e) {
+            //The coordinator disconnected in the middle of a frame
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Scores a whole population by playing one game per genome
+ */
+public interface Evaluator {
+
+    /**
+     * Plays a game for every genome and stores the reached fitness in it. Every genome gets its own generator, split
+     * off the generator of the calling thread in population order.
+     *
+     * @param population genomes to be scored
+     */
+    default void evaluate(List<Genome> population) {
+        List<SplittableGenerator> randoms = new ArrayList<>(population.size());
+        for (int i = 0; i < population.size(); i++) {
+            randoms.add(Helper.split());
+        }
+        evaluate(population, randoms);
+    }
+
+    /**
+     * Plays a game for every genome and stores the reached fitness in it. The game of a genome only draws from the
+     * generator at the same position, so its fitness does not depend on which other genomes are played.
+     *
+     * @param population genomes to be scored
+     * @param randoms    generator of every genome
+     */
+    void evaluate(List<Genome> population, List<SplittableGenerator> randoms);
+
+    /**
+     * Releases the worker threads of the evaluator, if it has any
+     */
+    default void shutdown() {
+    }
+}
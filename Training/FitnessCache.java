@@ -0,0 +1,128 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache from a chromosome hash to the fitness of that chromosome. Lets the evaluators
+ * skip genomes that were already played, like elites and parents that were copied unchanged into the next generation.
+ * <p>
+ * In averaging mode the genomes are still played, and the cache keeps the mean over all games of a chromosome, which
+ * smooths the noise of the random apple positions.
+ * <p>
+ * Chromosomes are only compared by a 64 bit hash, a collision gives a genome the fitness of another one. With a few
+ * million entries that is far less likely than anything else going wrong.
+ * <p>
+ * Every method is synchronized, but a lookup and the record after the game are separate calls, so evaluators that run
+ * at the same time, like those of the islands, each need a cache of their own.
+ */
+public class FitnessCache {
+
+    private final int capacity;
+    private final boolean averaging;
+    private final LinkedHashMap<Long, double[]> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity  maximum number of chromosomes kept
+     * @param averaging true to play cached genomes again and average their fitness, false to skip them
+     */
+    public FitnessCache(int capacity, boolean averaging) {
+        this.capacity = capacity;
+        this.averaging = averaging;
+        this.entries = new LinkedHashMap<Long, double[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+                if (size() > FitnessCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return 64 bit hash of the weights of the genome
+     */
+    public static long hash(Genome genome) {
+        long hash = 0x9E3779B97F4A7C15L ^ genome.size();
+        for (int i = 0; i < genome.size(); i++) {
+            hash = (hash ^ Double.doubleToLongBits(genome.getWeight(i))) * 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 29;
+        }
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Gives the genome its cached fitness if it does not need to be played
+     *
+     * @param hash   hash of the genome
+     * @param genome genome that is about to be evaluated
+     * @return true if the genome got its fitness from the cache and can be skipped
+     */
+    public synchronized boolean apply(long hash, Genome genome) {
+        double[] entry = entries.get(hash);
+        if (entry == null) {
+            misses++;
+            return false;
+        }
+
+        hits++;
+        if (averaging) {
+            return false;
+        }
+        genome.setFitness(entry[0] / entry[1]);
+        return true;
+    }
+
+    /**
+     * Stores the fitness a genome reached in its game. In averaging mode the genome gets the mean over all its games.
+     *
+     * @param hash   hash of the genome
+     * @param genome genome that has just been played
+     */
+    public synchronized void record(long hash, Genome genome) {
+        double[] entry = entries.get(hash);
+        if (entry == null || !averaging) {
+            entries.put(hash, new double[]{genome.getFitness(), 1});
+            return;
+        }
+
+        entry[0] += genome.getFitness();
+        entry[1]++;
+        genome.setFitness(entry[0] / entry[1]);
+    }
+
+    public boolean isAveraging() {
+        return averaging;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return share of lookups that found the chromosome, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
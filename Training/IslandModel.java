@@ -0,0 +1,201 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Island model: several populations evolve side by side, each on its own thread with its own generator, and every
+ * few generations each island sends copies of its fittest genomes to its neighbours.
+ * <p>
+ * Migrants travel through lock-free queues. An island never waits for another one, it takes in whatever arrived
+ * before it scores its next generation, in place of the last children of that generation. Since the islands run at
+ * their own pace, when migrants arrive depends on the scheduling, so unlike a single population a run is not
+ * reproducible from its seed.
+ */
+public class IslandModel {
+
+    /**
+     * Which islands receive the migrants of an island
+     */
+    public enum Topology {
+        // Island i sends to island i + 1, the last one to the first
+        RING,
+        // Every island sends to all others
+        FULLY_CONNECTED
+    }
+
+    private int numIslands;
+    private Topology topology;
+    private int interval;
+    private int migrants;
+    private Supplier<GeneticAlgorithm> populations;
+    private Supplier<Evaluator> evaluators;
+    private List<ConcurrentLinkedQueue<Genome>> inboxes;
+    private GeneticAlgorithm[] islands;
+    private BiConsumer<Integer, GeneticAlgorithm> listener = (island, genetics) -> {
+    };
+    private AtomicLong migrations = new AtomicLong();
+    private AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private volatile boolean stopped;
+
+    /**
+     * @param numIslands  number of populations
+     * @param topology    which islands exchange genomes
+     * @param interval    every how many generations an island sends migrants
+     * @param migrants    number of genomes an island sends to each neighbour
+     * @param populations creates the initial population of an island, called on the island's thread
+     * @param evaluators  creates the evaluator of an island, called on the island's thread
+     */
+    public IslandModel(int numIslands, Topology topology, int interval, int migrants,
+                       Supplier<GeneticAlgorithm> populations, Supplier<Evaluator> evaluators) {
+        this.numIslands = numIslands;
+        this.topology = topology;
+        this.interval = interval;
+        this.migrants = migrants;
+        this.populations = populations;
+        this.evaluators = evaluators;
+        this.islands = new GeneticAlgorithm[numIslands];
+        this.inboxes = new ArrayList<>(numIslands);
+        for (int i = 0; i < numIslands; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * @param listener called on the island's thread after every generation of an island
+     */
+    public void setListener(BiConsumer<Integer, GeneticAlgorithm> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Evolves all islands and returns once every island is done
+     *
+     * @param seed        seed of the run, every island derives its own from it
+     * @param generations number of generations every island evolves
+     */
+    public void run(long seed, int generations) {
+        Thread[] threads = new Thread[numIslands];
+        for (int i = 0; i < numIslands; i++) {
+            int island = i;
+            threads[i] = new Thread(() -> evolve(island, seed, generations), "island-" + i);
+            threads[i].start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Island model was interrupted", e);
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("An island failed", failure.get());
+        }
+    }
+
+    /**
+     * Makes every island stop after its current generation
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void evolve(int island, long seed, int generations) {
+        long islandSeed = Helper.deriveSeed(seed, island);
+        Evaluator evaluator = null;
+
+        try {
+            Helper.setSeed(islandSeed);
+            GeneticAlgorithm genetics = populations.get();
+            genetics.setSeed(islandSeed);
+            islands[island] = genetics;
+            evaluator = evaluators.get();
+            List<Genome> population = genetics.getPopulation();
+
+            for (int generation = 0; generation < generations && !stopped; generation++) {
+                Helper.setSeed(Helper.deriveSeed(islandSeed, generation));
+                immigrate(island, population);
+                evaluator.evaluate(population);
+                if ((generation + 1) % interval == 0) {
+                    emigrate(island, genetics);
+                }
+
+                population = genetics.epoch(population, false);
+                listener.accept(island, genetics);
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            stop();
+        } finally {
+            if (evaluator != null) {
+                evaluator.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Sends copies of the fittest genomes of the scored population to the neighbours
+     */
+    private void emigrate(int island, GeneticAlgorithm genetics) {
+        List<Genome> fittest = genetics.grabNBest(migrants, 1, new ArrayList<>());
+
+        for (int other = 0; other < numIslands; other++) {
+            boolean neighbour = topology == Topology.RING ? other == (island + 1) % numIslands : other != island;
+            if (!neighbour) {
+                continue;
+            }
+            for (Genome genome : fittest) {
+                inboxes.get(other).add(new Genome(genome));
+            }
+            migrations.addAndGet(fittest.size());
+        }
+    }
+
+    /**
+     * Replaces the last children of the population with the fittest migrants that arrived, at most half of it
+     */
+    private void immigrate(int island, List<Genome> population) {
+        List<Genome> arrivals = new ArrayList<>();
+        Genome genome;
+        while ((genome = inboxes.get(island).poll()) != null) {
+            arrivals.add(genome);
+        }
+        if (arrivals.isEmpty()) {
+            return;
+        }
+
+        Collections.sort(arrivals, Collections.reverseOrder());
+        int count = Math.min(arrivals.size(), population.size() / 2);
+        for (int i = 0; i < count; i++) {
+            population.set(population.size() - 1 - i, arrivals.get(i));
+        }
+    }
+
+    /**
+     * @return the genetic algorithm of an island, safe to read from the listener or after run returned
+     */
+    public GeneticAlgorithm getIsland(int island) {
+        return islands[island];
+    }
+
+    /**
+     * @return number of genomes sent between islands so far
+     */
+    public long getMigrations() {
+        return migrations.get();
+    }
+}
@@ -0,0 +1,79 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Scores the genomes of a population concurrently. Every game is independent, so each genome becomes its own task
+ * and every worker thread loads the genomes into its own net. Each game draws its random numbers from the generator
+ * of its genome, so the scores do not depend on the scheduling.
+ */
+public class ParallelEvaluator implements Evaluator {
+
+    private ExecutorService pool;
+    private ThreadLocal<NeuralNet> players;
+    private ToIntFunction<NeuralNet> game;
+
+    /**
+     * @param threads  number of worker threads
+     * @param forkJoin true to use a work stealing fork-join pool, false for a fixed thread pool
+     * @param net      creates the net of a worker, all nets must have the same topology
+     * @param game     plays one game with the given net and returns the reached fitness
+     */
+    public ParallelEvaluator(int threads, boolean forkJoin, Supplier<NeuralNet> net, ToIntFunction<NeuralNet> game) {
+        this.players = ThreadLocal.withInitial(net);
+        this.game = game;
+
+        if (forkJoin) {
+            pool = new ForkJoinPool(threads);
+        } else {
+            pool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread worker = new Thread(runnable, "evaluator");
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        List<Callable<Void>> games = new ArrayList<>(population.size());
+
+        for (int i = 0; i < population.size(); i++) {
+            Genome genome = population.get(i);
+            SplittableGenerator random = randoms.get(i);
+            games.add(() -> {
+                //Create the net of a new worker before, so it does not draw from the game's generator
+                NeuralNet player = players.get();
+                Helper.setRandom(random);
+                player.putWeights(genome.getWeights());
+                genome.setFitness(game.applyAsInt(player));
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> result : pool.invokeAll(games)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation of a genome failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,367 @@
+package Training;
+
+import Game.SensorSettings;
+import Genetic.Algorithm.Genome;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Coordinator that has the genomes scored by {@link EvaluationWorker} processes connecting over TCP.
+ * <p>
+ * A worker gets the topology of the nets and the game settings once when it connects, and from then on batches of
+ * chromosomes, each with its own seed. It plays them and sends back their fitness. A worker that disconnects or does
+ * not answer within the timeout is dropped, and its batch goes to the next free worker. The seed of a chromosome is
+ * drawn from the generator of its genome, so a genome gets the same fitness no matter how many workers there are or
+ * which one plays it. The games draw different random numbers than with the local evaluators, though.
+ * <p>
+ * Every message is a frame: the length of the rest of the frame as int, a type byte and the payload, big-endian.
+ * <pre>
+ * HELLO  magic, version, inputs, outputs, hidden layers, neurons per layer (int), rays, diagonal rays (boolean),
+ *        max actions, stall actions (int)
+ * BATCH  batch id (int), genomes, weights per genome (int), then per genome its seed (long) and weights (double)
+ * RESULT batch id (int), genomes (int), fitness (double)
+ * </pre>
+ */
+public class RemoteEvaluator implements Evaluator {
+
+    static final int MAGIC = 0x534E4B57;
+    static final int VERSION = 2;
+    static final byte HELLO = 1;
+    static final byte BATCH = 2;
+    static final byte RESULT = 3;
+    // Largest frame a reader accepts, protects against reading garbage as a length
+    private static final int MAX_FRAME = 1 << 28;
+    private static final long POLL_MILLIS = 100;
+
+    private ServerSocket server;
+    private int batchSize;
+    private long timeoutMillis;
+    private byte[] hello;
+    private int nextBatchId;
+    private LinkedBlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private Deque<Connection> idle = new ArrayDeque<>();
+    private Set<Connection> connections = Collections.synchronizedSet(new HashSet<>());
+    private long redispatched;
+
+    /**
+     * Starts listening for workers
+     *
+     * @param port          port the workers connect to, 0 for any free port
+     * @param batchSize     number of genomes sent to a worker at once
+     * @param timeoutMillis time a worker gets for one batch before it counts as lost
+     * @param maxActions    maximum number of steps of a game
+     * @param stallActions  maximum number of steps between two apples, 0 for no limit
+     * @throws IOException if the port cannot be opened
+     */
+    public RemoteEvaluator(int port, int batchSize, long timeoutMillis, int numInputs, int numOutputs,
+                           int numHiddenLayers, int neuronsPerHiddenLayer, int maxActions, int stallActions) throws IOException {
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream hello = new DataOutputStream(bytes);
+        hello.writeInt(MAGIC);
+        hello.writeInt(VERSION);
+        hello.writeInt(numInputs);
+        hello.writeInt(numOutputs);
+        hello.writeInt(numHiddenLayers);
+        hello.writeInt(neuronsPerHiddenLayer);
+        hello.writeBoolean(SensorSettings.RAYS);
+        hello.writeBoolean(SensorSettings.DIAGONAL_RAYS);
+        hello.writeInt(maxActions);
+        hello.writeInt(stallActions);
+        this.hello = bytes.toByteArray();
+
+        server = new ServerSocket(port);
+        Thread acceptor = new Thread(this::accept, "coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Connection worker = new Connection(socket);
+                worker.send(HELLO, hello);
+                connections.add(worker);
+                Thread reader = new Thread(() -> read(worker), "coordinator " + socket.getRemoteSocketAddress());
+                reader.setDaemon(true);
+                reader.start();
+                events.add(new Event(Event.Kind.JOINED, worker, 0, null));
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.out.println(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the frames of a worker into events until the connection breaks
+     */
+    private void read(Connection worker) {
+        try {
+            DataInputStream frame;
+            while ((frame = readFrame(worker.in)) != null) {
+                if (frame.readByte() != RESULT) {
+                    throw new IOException("Unexpected frame from worker");
+                }
+                int batchId = frame.readInt();
+                double[] fitness = new double[frame.readInt()];
+                for (int i = 0; i < fitness.length; i++) {
+                    fitness[i] = frame.readDouble();
+                }
+                events.add(new Event(Event.Kind.RESULT, worker, batchId, fitness));
+            }
+        } catch (IOException e) {
+            //Lost below like a closed connection
+        }
+        worker.close();
+        events.add(new Event(Event.Kind.LOST, worker, 0, null));
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        long[] seeds = new long[population.size()];
+        for (int i = 0; i < population.size(); i++) {
+            seeds[i] = randoms.get(i).nextLong();
+        }
+
+        Deque<Batch> pending = new ArrayDeque<>();
+        for (int from = 0; from < population.size(); from += batchSize) {
+            pending.add(new Batch(nextBatchId++, from, Math.min(from + batchSize, population.size())));
+        }
+        Map<Connection, Batch> running = new HashMap<>();
+        int remaining = pending.size();
+        boolean waiting = false;
+
+        while (remaining > 0) {
+            while (!pending.isEmpty() && !idle.isEmpty()) {
+                Connection worker = idle.poll();
+                Batch batch = pending.poll();
+                try {
+                    worker.send(BATCH, batch.encode(population, seeds));
+                    batch.sentAt = System.nanoTime();
+                    running.put(worker, batch);
+                } catch (IOException e) {
+                    pending.addFirst(batch);
+                    worker.close();
+                }
+            }
+            //Workers that already joined are in the queue, so only an empty queue means waiting for them
+            Event event = events.poll();
+            if (event == null) {
+                if (running.isEmpty() && idle.isEmpty() && !waiting) {
+                    System.out.println("Waiting for workers on port " + getPort());
+                    waiting = true;
+                }
+                try {
+                    event = events.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Evaluation was interrupted", e);
+                }
+            }
+
+            if (event != null) {
+                Connection worker = event.worker;
+                switch (event.kind) {
+                    case JOINED:
+                        idle.add(worker);
+                        waiting = false;
+                        break;
+                    case RESULT:
+                        Batch batch = running.get(worker);
+                        //Results of a batch that was already given to another worker are dropped
+                        if (batch != null && batch.id == event.batchId && event.fitness.length == batch.to - batch.from) {
+                            running.remove(worker);
+                            for (int i = batch.from; i < batch.to; i++) {
+                                population.get(i).setFitness(event.fitness[i - batch.from]);
+                            }
+                            remaining--;
+                        }
+                        if (!worker.closed && !running.containsKey(worker) && !idle.contains(worker)) {
+                            idle.add(worker);
+                        }
+                        break;
+                    case LOST:
+                        idle.remove(worker);
+                        connections.remove(worker);
+                        redispatch(running.remove(worker), pending);
+                        break;
+                }
+            }
+
+            long now = System.nanoTime();
+            Iterator<Map.Entry<Connection, Batch>> it = running.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Connection, Batch> entry = it.next();
+                if (now - entry.getValue().sentAt > timeoutMillis * 1_000_000L) {
+                    it.remove();
+                    entry.getKey().close();
+                    redispatch(entry.getValue(), pending);
+                }
+            }
+        }
+    }
+
+    private void redispatch(Batch batch, Deque<Batch> pending) {
+        if (batch != null) {
+            pending.addFirst(batch);
+            redispatched++;
+        }
+    }
+
+    /**
+     * Reads one frame
+     *
+     * @return the rest of the frame, starting with its type, or null at the end of the stream
+     * @throws IOException if the stream breaks or the frame is invalid
+     */
+    static DataInputStream readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 1 || length > MAX_FRAME) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return new DataInputStream(new ByteArrayInputStream(frame));
+    }
+
+    /**
+     * Writes one frame and flushes it
+     */
+    static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeInt(payload.length + 1);
+        out.writeByte(type);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * @return port the workers connect to
+     */
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return number of batches that were given to another worker after their worker was lost
+     */
+    public long getRedispatched() {
+        return redispatched;
+    }
+
+    /**
+     * Stops listening and disconnects all workers, which makes them exit
+     */
+    @Override
+    public void shutdown() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        synchronized (connections) {
+            for (Connection worker : connections) {
+                worker.close();
+            }
+        }
+    }
+
+    /**
+     * Socket of one worker
+     */
+    private static final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private volatile boolean closed;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private void send(byte type, byte[] payload) throws IOException {
+            writeFrame(out, type, payload);
+        }
+
+        private void close() {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //Already broken
+            }
+        }
+    }
+
+    /**
+     * Genomes from..to of the population, sent as one frame
+     */
+    private static final class Batch {
+        private final int id;
+        private final int from;
+        private final int to;
+        private long sentAt;
+
+        private Batch(int id, int from, int to) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+        }
+
+        private byte[] encode(List<Genome> population, long[] seeds) throws IOException {
+            int chromoLength = population.get(from).size();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + 8 * (chromoLength + 1) * (to - from));
+            DataOutputStream payload = new DataOutputStream(bytes);
+            payload.writeInt(id);
+            payload.writeInt(to - from);
+            payload.writeInt(chromoLength);
+            for (int i = from; i < to; i++) {
+                Genome genome = population.get(i);
+                payload.writeLong(seeds[i]);
+                for (int j = 0; j < chromoLength; j++) {
+                    payload.writeDouble(genome.getWeight(j));
+                }
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Something that happened to a worker, handed from the network threads to the evaluating thread
+     */
+    private static final class Event {
+        private enum Kind {
+            JOINED, RESULT, LOST
+        }
+
+        private final Kind kind;
+        private final Connection worker;
+        private final int batchId;
+        private final double[] fitness;
+
+        private Event(Kind kind, Connection worker, int batchId, double[] fitness) {
+            this.kind = kind;
+            this.worker = worker;
+            this.batchId = batchId;
+            this.fitness = fitness;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Scores the genomes one after another on the calling thread, reusing a single net
+ */
+public class SequentialEvaluator implements Evaluator {
+
+    private NeuralNet player;
+    private ToIntFunction<NeuralNet> game;
+
+    /**
+     * @param player net the genomes are loaded into
+     * @param game   plays one game with the given net and returns the reached fitness
+     */
+    public SequentialEvaluator(NeuralNet player, ToIntFunction<NeuralNet> game) {
+        this.player = player;
+        this.game = game;
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        SplittableGenerator random = Helper.random();
+
+        try {
+            for (int i = 0; i < population.size(); i++) {
+                Genome genome = population.get(i);
+                Helper.setRandom(randoms.get(i));
+                player.putWeights(genome.getWeights());
+                genome.setFitness(game.applyAsInt(player));
+            }
+        } finally {
+            Helper.setRandom(random);
+        }
+    }
+}
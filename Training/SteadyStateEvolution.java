@@ -0,0 +1,208 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Steady-state evolution without a generation barrier. As soon as a game ends, its genome takes the place of the least
+ * fit genome of the population if it is at least as fit, and a new child is bred from the population by tournament
+ * selection and crossover and queued for the workers. A long surviving snake therefore only keeps its own worker busy.
+ * Two games per worker are queued at any time, so a worker that finishes a game does not wait for the next child.
+ * <p>
+ * Scores, breeding and replacing are all handled on the calling thread, the workers only play a copy of the weights and
+ * return the score. The calling thread also splits the generator of every game off its own generator. Children are only
+ * bred from genomes that were scored already. Which game ends first depends on the scheduling, so unlike generational
+ * training a run with several workers is not reproducible from its seed, only a run with one worker is.
+ */
+public class SteadyStateEvolution {
+
+    private GeneticAlgorithm genetics;
+    private int threads;
+    private ThreadLocal<NeuralNet> players;
+    private ToIntFunction<NeuralNet> game;
+    private Consumer<GeneticAlgorithm> listener = genetics -> {
+    };
+    private LongAdder busyNanos = new LongAdder();
+    private long evaluations;
+    private long replacements;
+    private long wallNanos;
+    private long started;
+    // Number of genomes of the initial population that were queued
+    private int initial;
+    private volatile boolean stopped;
+
+    /**
+     * @param genetics population to evolve in a list on the heap, its genomes are scored first
+     * @param threads  number of worker threads
+     * @param net      creates the net of a worker, all nets must have the same topology
+     * @param game     plays one game with the given net and returns the reached fitness
+     */
+    public SteadyStateEvolution(GeneticAlgorithm genetics, int threads, Supplier<NeuralNet> net, ToIntFunction<NeuralNet> game) {
+        this.genetics = genetics;
+        this.threads = threads;
+        this.players = ThreadLocal.withInitial(net);
+        this.game = game;
+    }
+
+    /**
+     * @param listener called on the calling thread every time as many games ended as the population has genomes, after
+     *                 the statistics of the population were updated
+     */
+    public void setListener(Consumer<GeneticAlgorithm> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Evolves the population and returns once the given number of games ended or stop was called
+     *
+     * @param seed        seed of the run
+     * @param evaluations number of games to play, including the initial population
+     */
+    public void run(long seed, long evaluations) {
+        Helper.setSeed(seed);
+        List<Genome> population = genetics.getPopulation();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread worker = new Thread(runnable, "steady-state");
+            worker.setDaemon(true);
+            return worker;
+        });
+        CompletionService<Integer> games = new ExecutorCompletionService<>(pool);
+        //Genome of every running game, the workers only return the score, so genomes are only touched on this thread
+        Map<Future<Integer>, Genome> playing = new HashMap<>();
+        //Genomes of the initial population whose first game has not ended, they are neither replaced nor bred from
+        Set<Genome> unscored = Collections.newSetFromMap(new IdentityHashMap<>());
+        unscored.addAll(population);
+        initial = 0;
+        started = System.nanoTime();
+
+        try {
+            fill(games, playing, population, unscored, evaluations);
+            while (!playing.isEmpty()) {
+                Future<Integer> ended = games.take();
+                Genome genome = playing.remove(ended);
+                genome.setFitness(ended.get());
+                this.evaluations++;
+
+                if (!unscored.remove(genome)) {
+                    replaceWorst(population, unscored, genome);
+                }
+                if (this.evaluations % population.size() == 0) {
+                    genetics.calculateStats();
+                    listener.accept(genetics);
+                }
+                fill(games, playing, population, unscored, evaluations);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evolution was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation of a genome failed", e.getCause());
+        } finally {
+            wallNanos += System.nanoTime() - started;
+            started = 0;
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues games until two per worker are running: first the initial population, then children bred from the
+     * scored genomes. Waits for the next ended game if no genome is scored yet.
+     */
+    private void fill(CompletionService<Integer> games, Map<Future<Integer>, Genome> playing, List<Genome> population,
+                      Set<Genome> unscored, long evaluations) {
+        while (!stopped && this.evaluations + playing.size() < evaluations && playing.size() < 2 * threads) {
+            Genome next;
+            if (initial < population.size()) {
+                next = population.get(initial++);
+            } else {
+                List<Genome> scored = new ArrayList<>(population.size());
+                for (Genome genome : population) {
+                    if (!unscored.contains(genome)) {
+                        scored.add(genome);
+                    }
+                }
+                if (scored.isEmpty()) {
+                    return;
+                }
+                next = genetics.breed(scored);
+            }
+            playing.put(submit(games, next), next);
+        }
+    }
+
+    /**
+     * Starts the game of a genome on the next free worker
+     *
+     * @return the score of the game once it ended
+     */
+    private Future<Integer> submit(CompletionService<Integer> games, Genome genome) {
+        //Split and copy on the calling thread in the order the games start
+        SplittableGenerator random = Helper.split();
+        double[] weights = genome.getWeights().clone();
+        return games.submit(() -> {
+            NeuralNet player = players.get();
+            long start = System.nanoTime();
+            Helper.setRandom(random);
+            player.putWeights(weights);
+            int fitness = game.applyAsInt(player);
+            busyNanos.add(System.nanoTime() - start);
+            return fitness;
+        });
+    }
+
+    /**
+     * Puts a scored child in place of the least fit scored genome, unless it is less fit than that one
+     */
+    private void replaceWorst(List<Genome> population, Set<Genome> unscored, Genome child) {
+        int worst = -1;
+        for (int i = 0; i < population.size(); i++) {
+            Genome genome = population.get(i);
+            if (!unscored.contains(genome) && (worst < 0 || genome.getFitness() < population.get(worst).getFitness())) {
+                worst = i;
+            }
+        }
+        if (worst >= 0 && child.getFitness() >= population.get(worst).getFitness()) {
+            population.set(worst, child);
+            replacements++;
+        }
+    }
+
+    /**
+     * Makes run return once the running games ended
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return number of games played
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return number of children that took the place of a genome in the population
+     */
+    public long getReplacements() {
+        return replacements;
+    }
+
+    /**
+     * @return share of the time the workers spent on ended games so far, between 0 and 1
+     */
+    public double getUtilization() {
+        long wall = wallNanos + (started != 0 ? System.nanoTime() - started : 0);
+        return wall == 0 ? 0 : busyNanos.sum() / ((double) wall * threads);
+    }
+}
@@ -0,0 +1,204 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Scores the genomes concurrently, longest expected game first. A game lasts about as many steps as it scores, so the
+ * genomes are sorted by their expected fitness, the fitness of their parents, and dealt round robin onto one deque per
+ * worker. A worker plays its own games from the longest down; once its deque is empty it steals the longest game left
+ * on any other deque. The long games start early and the short ones fill the gaps at the end, so the workers finish
+ * at about the same time.
+ * <p>
+ * Every game draws its random numbers from the generator of its genome, so the scores are the same as with the other
+ * evaluators.
+ */
+public class WorkStealingEvaluator implements Evaluator {
+
+    private ExecutorService pool;
+    private int threads;
+    private ThreadLocal<NeuralNet> players;
+    private ToIntFunction<NeuralNet> game;
+    private long[] busyNanos;
+    private long[] idleNanos;
+    private long[] steals;
+
+    /**
+     * @param threads number of worker threads
+     * @param net     creates the net of a worker, all nets must have the same topology
+     * @param game    plays one game with the given net and returns the reached fitness
+     */
+    public WorkStealingEvaluator(int threads, Supplier<NeuralNet> net, ToIntFunction<NeuralNet> game) {
+        this.threads = threads;
+        this.players = ThreadLocal.withInitial(net);
+        this.game = game;
+        this.busyNanos = new long[threads];
+        this.idleNanos = new long[threads];
+        this.steals = new long[threads];
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread worker = new Thread(runnable, "evaluator");
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    @Override
+    public void evaluate(List<Genome> population, List<SplittableGenerator> randoms) {
+        List<Game> games = new ArrayList<>(population.size());
+        for (int i = 0; i < population.size(); i++) {
+            games.add(new Game(population.get(i), randoms.get(i)));
+        }
+
+        //Stable, so genomes without an estimate keep the population order
+        games.sort(Comparator.comparingDouble((Game game) -> game.genome.getExpectedFitness()).reversed());
+        List<ConcurrentLinkedDeque<Game>> deques = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            deques.add(new ConcurrentLinkedDeque<>());
+        }
+        for (int i = 0; i < games.size(); i++) {
+            deques.get(i % threads).add(games.get(i));
+        }
+
+        long[] busy = new long[threads];
+        List<Callable<Void>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            workers.add(() -> {
+                busy[worker] = work(worker, deques);
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> result : pool.invokeAll(workers)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation of a genome failed", e.getCause());
+        }
+        long wall = System.nanoTime() - start;
+
+        for (int i = 0; i < threads; i++) {
+            busyNanos[i] += busy[i];
+            idleNanos[i] += Math.max(0, wall - busy[i]);
+        }
+    }
+
+    /**
+     * Plays games until all deques are empty
+     *
+     * @return nanoseconds spent playing
+     */
+    private long work(int worker, List<ConcurrentLinkedDeque<Game>> deques) {
+        NeuralNet player = players.get();
+        long busy = 0;
+        Game next;
+
+        while ((next = deques.get(worker).pollFirst()) != null || (next = steal(worker, deques)) != null) {
+            long start = System.nanoTime();
+            Helper.setRandom(next.random);
+            player.putWeights(next.genome.getWeights());
+            next.genome.setFitness(game.applyAsInt(player));
+            busy += System.nanoTime() - start;
+        }
+        return busy;
+    }
+
+    /**
+     * @return the longest expected game at the head of another worker's deque, or null once all deques are empty
+     */
+    private Game steal(int worker, List<ConcurrentLinkedDeque<Game>> deques) {
+        while (true) {
+            ConcurrentLinkedDeque<Game> victim = null;
+            double longest = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < threads; i++) {
+                Game head = deques.get(i).peekFirst();
+                if (i != worker && head != null && head.genome.getExpectedFitness() > longest) {
+                    victim = deques.get(i);
+                    longest = head.genome.getExpectedFitness();
+                }
+            }
+            if (victim == null) {
+                return null;
+            }
+            //Another worker may have taken the head in the meantime, then look again
+            Game stolen = victim.pollFirst();
+            if (stolen != null) {
+                steals[worker]++;
+                return stolen;
+            }
+        }
+    }
+
+    /**
+     * @return number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return nanoseconds a worker spent playing, summed over all evaluations
+     */
+    public long getBusyNanos(int worker) {
+        return busyNanos[worker];
+    }
+
+    /**
+     * @return nanoseconds a worker waited for the others to finish an evaluation, summed over all evaluations
+     */
+    public long getIdleNanos(int worker) {
+        return idleNanos[worker];
+    }
+
+    /**
+     * @return number of games a worker took from the deque of another worker
+     */
+    public long getSteals(int worker) {
+        return steals[worker];
+    }
+
+    /**
+     * @return share of the time all workers spent playing, between 0 and 1
+     */
+    public double getUtilization() {
+        long busy = 0;
+        long total = 0;
+        for (int i = 0; i < threads; i++) {
+            busy += busyNanos[i];
+            total += busyNanos[i] + idleNanos[i];
+        }
+        return total == 0 ? 0 : (double) busy / total;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * A genome and the generator of its game
+     */
+    private static final class Game {
+        private final Genome genome;
+        private final SplittableGenerator random;
+
+        private Game(Genome genome, SplittableGenerator random) {
+            this.genome = genome;
+            this.random = random;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package Game;
+
+import Neural.Net.NeuralNet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Stands in for the net of a game: records every input it is shown and steers the snake itself, mostly towards the
+ * apple and now and then at random, but never back into its own neck or straight into what it sees ahead. Two pilots with the same seed steer the same
+ * way as long as they are shown the same inputs, so games can be compared move by move.
+ */
+class Pilot extends NeuralNet {
+
+    // Outputs of the game, up, down, right and left
+    private static final int[] OPPOSITE = {1, 0, 3, 2};
+
+    private final SplittableRandom random;
+    private final List<double[]> seen = new ArrayList<>();
+    private int heading = 2;
+    private SnakeSimulation game;
+
+    Pilot(long seed) {
+        super(SensorSettings.getNumInputs(), 4, 0, 0);
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void update(double[] in, double[] out) {
+        seen.add(in.clone());
+
+        int next;
+        if (random.nextInt(20) == 0) {
+            next = random.nextInt(4);
+        } else {
+            //Apple and head position are inputs 2 to 5 without rays, rays do not tell where the apple is
+            double dx = game != null ? game.getAppleX() - game.getX(0) : in[2] - in[4];
+            double dy = game != null ? game.getAppleY() - game.getY(0) : in[3] - in[5];
+            if (dx != 0 && (dy == 0 || random.nextBoolean())) {
+                next = dx > 0 ? 2 : 3;
+            } else {
+                next = dy > 0 ? 1 : 0;
+            }
+        }
+        if (next == OPPOSITE[heading]) {
+            next = heading;
+        }
+        //Turn away when the next cell is taken, input 0 is the free distance ahead without rays
+        if (SensorSettings.RAYS ? blocked(in, next) : next == heading && in[0] == 0) {
+            next = SensorSettings.RAYS ? roomiest(in) : heading < 2 ? 2 + random.nextInt(2) : random.nextInt(2);
+        }
+        heading = next;
+
+        for (int i = 0; i < 4; i++) {
+            out[i] = i == next ? 1 : 0;
+        }
+    }
+
+    /**
+     * @return the straight ray, other than back, with the most room before a wall or a dot
+     */
+    private int roomiest(double[] in) {
+        int best = heading;
+        double closest = Double.MAX_VALUE;
+        for (int ray = 0; ray < 4; ray++) {
+            double blocked = Math.max(in[3 * ray], in[3 * ray + 1]);
+            if (ray != OPPOSITE[heading] && blocked < closest) {
+                closest = blocked;
+                best = ray;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return true if the wall or a dot is right next to the head along the straight ray
+     */
+    private static boolean blocked(double[] in, int ray) {
+        return in[3 * ray] == 1 || in[3 * ray + 1] == 1;
+    }
+
+    /**
+     * Lets the pilot look at the apple of the game it steers, which ray inputs do not show
+     */
+    void watch(SnakeSimulation game) {
+        this.game = game;
+    }
+
+    /**
+     * @return every input shown so far, in order
+     */
+    List<double[]> getSeen() {
+        return seen;
+    }
+
+    /**
+     * @return the last input shown
+     */
+    double[] getLast() {
+        return seen.get(seen.size() - 1);
+    }
+}
@@ -0,0 +1,115 @@
+package Game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Holds the bitmask rays against marching cell by cell along every ray and looking at every dot
+ */
+class RaySensorTest {
+
+    private boolean rays;
+    private boolean diagonalRays;
+
+    @BeforeEach
+    void raySensors() {
+        rays = SensorSettings.RAYS;
+        diagonalRays = SensorSettings.DIAGONAL_RAYS;
+        SensorSettings.RAYS = true;
+    }
+
+    @AfterEach
+    void restoreSensors() {
+        SensorSettings.RAYS = rays;
+        SensorSettings.DIAGONAL_RAYS = diagonalRays;
+    }
+
+    @Test
+    void nearestFindsTheClosestBit() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int n = 0; n < 100_000; n++) {
+            //Sparse and dense lines
+            long line = random.nextLong() & random.nextLong() & (n % 2 == 0 ? random.nextLong() : -1L);
+            int position = random.nextInt(SnakeSimulation.COLUMNS);
+            for (boolean ascending : new boolean[]{true, false}) {
+                int expected = Integer.MAX_VALUE;
+                for (int k = 1; position + (ascending ? k : -k) >= 0 && position + (ascending ? k : -k) < 64; k++) {
+                    if ((line >>> (position + (ascending ? k : -k)) & 1) != 0) {
+                        expected = k;
+                        break;
+                    }
+                }
+                assertEquals(expected, SnakeSimulation.nearest(line, position, ascending), Long.toBinaryString(line) + " at " + position);
+            }
+        }
+    }
+
+    @Test
+    void raysSeeWhatMarchingSees() {
+        for (boolean diagonal : new boolean[]{true, false}) {
+            SensorSettings.DIAGONAL_RAYS = diagonal;
+            long checks = 0;
+            int longest = 0;
+
+            for (int n = 0; n < 300; n++) {
+                Pilot pilot = new Pilot(n);
+                SnakeSimulation game = new SnakeSimulation(pilot, new SplittableRandom(n));
+                pilot.watch(game);
+                for (int step = 0; step < 3000 && game.isInGame(); step++) {
+                    game.step();
+                    if (game.isInGame()) {
+                        assertArrayEquals(march(game), pilot.getLast(), "game " + n + " step " + step);
+                        checks++;
+                    }
+                }
+                longest = Math.max(longest, game.getDots());
+            }
+            assertTrue(checks > 10_000 && longest > 30, checks + " checks, longest snake " + longest);
+        }
+    }
+
+    /**
+     * @return the ray inputs of the game, found by walking every ray one cell at a time
+     */
+    private static double[] march(SnakeSimulation game) {
+        double[] inputs = new double[SensorSettings.getNumInputs()];
+        if (SnakeSimulation.isWall(game.getX(0), game.getY(0))) {
+            return inputs;
+        }
+
+        int column = game.getX(0) / SnakeSimulation.DOT_SIZE;
+        int row = game.getY(0) / SnakeSimulation.DOT_SIZE;
+        for (int ray = 0; ray < SensorSettings.getNumRays(); ray++) {
+            int body = 0;
+            int apple = 0;
+            int k = 1;
+            while (true) {
+                int x = (column + k * SnakeSimulation.RAY_X[ray]) * SnakeSimulation.DOT_SIZE;
+                int y = (row + k * SnakeSimulation.RAY_Y[ray]) * SnakeSimulation.DOT_SIZE;
+                if (SnakeSimulation.isWall(x, y)) {
+                    break;
+                }
+                for (int z = 1; z < game.getDots() && body == 0; z++) {
+                    if (game.getX(z) == x && game.getY(z) == y) {
+                        body = k;
+                    }
+                }
+                if (apple == 0 && game.getAppleX() == x && game.getAppleY() == y) {
+                    apple = k;
+                }
+                k++;
+            }
+            inputs[3 * ray] = 1.0 / k;
+            inputs[3 * ray + 1] = body == 0 ? 0 : 1.0 / body;
+            inputs[3 * ray + 2] = apple == 0 ? 0 : 1.0 / apple;
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,157 @@
+package Game;
+
+import Neural.Net.NeuralNet;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The AI game as it was played before the ring buffer: every move shifts the whole body, collisions scan all dots and
+ * the distance ahead is found by moving copies of the body until they collide. Slow, but obviously right, so the
+ * tests hold {@link SnakeSimulation} against it.
+ */
+class ReferenceSimulation {
+
+    private final int x[] = new int[SnakeSimulation.ALL_DOTS];
+    private final int y[] = new int[SnakeSimulation.ALL_DOTS];
+
+    private int dots;
+    private int apple_x;
+    private int apple_y;
+    private String movingDirection = "right";
+    private boolean inGame = true;
+
+    private NeuralNet brain;
+    private RandomGenerator random;
+    private double[] inputs = new double[6];
+    private double[] outputs = new double[4];
+    private int fitness;
+
+    ReferenceSimulation(NeuralNet brain, RandomGenerator random) {
+        this.brain = brain;
+        this.random = random;
+        dots = 3;
+        for (int z = 0; z < dots; z++) {
+            x[z] = 50 - z * 10;
+            y[z] = 50;
+        }
+        locateApple();
+    }
+
+    int play(int maxActions) {
+        for (int i = 0; i < maxActions && inGame; i++) {
+            step();
+        }
+        return fitness;
+    }
+
+    void step() {
+        if (!inGame) {
+            return;
+        }
+        if (x[0] == apple_x && y[0] == apple_y) {
+            dots++;
+            fitness += 5;
+            locateApple();
+        }
+        if (collides(x, y)) {
+            inGame = false;
+        } else {
+            fitness++;
+        }
+        move(x, y, movingDirection);
+        makeMove();
+    }
+
+    private void makeMove() {
+        inputs[0] = (double) borderDistance(x, y) / ((double) SnakeSimulation.B_WIDTH / SnakeSimulation.DOT_SIZE);
+        switch (movingDirection) {
+            case "right":
+                inputs[1] = -0.75;
+                break;
+            case "down":
+                inputs[1] = -0.25;
+                break;
+            case "left":
+                inputs[1] = 0.25;
+                break;
+            default:
+                inputs[1] = 0.75;
+        }
+        inputs[2] = (double) apple_x / SnakeSimulation.B_WIDTH;
+        inputs[3] = (double) apple_y / SnakeSimulation.B_HEIGHT;
+        inputs[4] = (double) x[0] / SnakeSimulation.B_WIDTH;
+        inputs[5] = (double) y[0] / SnakeSimulation.B_HEIGHT;
+        brain.update(inputs, outputs);
+
+        int chosen = 0;
+        double max = 0;
+        for (int i = 0; i < 4; i++) {
+            if (outputs[i] > max) {
+                max = outputs[i];
+                chosen = i;
+            }
+        }
+        movingDirection = new String[]{"up", "down", "right", "left"}[chosen];
+    }
+
+    private int borderDistance(int[] x, int[] y) {
+        int[] tempX = x.clone();
+        int[] tempY = y.clone();
+        move(tempX, tempY, movingDirection);
+        return collides(tempX, tempY) ? 0 : 1 + borderDistance(tempX, tempY);
+    }
+
+    private void move(int[] x, int[] y, String direction) {
+        for (int z = dots; z > 0; z--) {
+            x[z] = x[z - 1];
+            y[z] = y[z - 1];
+        }
+        switch (direction) {
+            case "left":
+                x[0] -= SnakeSimulation.DOT_SIZE;
+                break;
+            case "right":
+                x[0] += SnakeSimulation.DOT_SIZE;
+                break;
+            case "up":
+                y[0] -= SnakeSimulation.DOT_SIZE;
+                break;
+            default:
+                y[0] += SnakeSimulation.DOT_SIZE;
+        }
+    }
+
+    private boolean collides(int[] x, int[] y) {
+        for (int z = dots; z > 0; z--) {
+            if (x[0] == x[z] && y[0] == y[z]) {
+                return true;
+            }
+        }
+        return y[0] >= SnakeSimulation.B_HEIGHT || y[0] <= 0 || x[0] >= SnakeSimulation.B_WIDTH || x[0] <= 0;
+    }
+
+    private void locateApple() {
+        apple_x = random.nextInt(SnakeSimulation.RAND_POS) * SnakeSimulation.DOT_SIZE;
+        apple_y = random.nextInt(SnakeSimulation.RAND_POS) * SnakeSimulation.DOT_SIZE;
+    }
+
+    boolean isInGame() {
+        return inGame;
+    }
+
+    int getDots() {
+        return dots;
+    }
+
+    int getX(int dot) {
+        return x[dot];
+    }
+
+    int getY(int dot) {
+        return y[dot];
+    }
+
+    int getFitness() {
+        return fitness;
+    }
+}
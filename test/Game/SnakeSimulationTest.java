@@ -0,0 +1,74 @@
+package Game;
+
+import Help.Helper;
+import Neural.Net.NeuralNet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Holds the ring buffer and occupancy grid against the list implementation the game had before
+ */
+class SnakeSimulationTest {
+
+    private boolean rays;
+
+    @BeforeEach
+    void classicSensors() {
+        rays = SensorSettings.RAYS;
+        SensorSettings.RAYS = false;
+    }
+
+    @AfterEach
+    void restoreSensors() {
+        SensorSettings.RAYS = rays;
+    }
+
+    @Test
+    void netsReachTheSameFitness() {
+        Helper.setSeed(1);
+        for (int n = 0; n < 1000; n++) {
+            NeuralNet net = new NeuralNet(6, 4, 1 + n % 3, 6 + n % 9);
+            int expected = new ReferenceSimulation(net, new SplittableRandom(n)).play(2000);
+            assertEquals(expected, new SnakeSimulation(net, new SplittableRandom(n)).play(2000), "game " + n);
+        }
+    }
+
+    @Test
+    void steeredGamesMoveTheSameBody() {
+        int longest = 0;
+        for (int n = 0; n < 300; n++) {
+            Pilot expectedPilot = new Pilot(n);
+            Pilot actualPilot = new Pilot(n);
+            ReferenceSimulation expected = new ReferenceSimulation(expectedPilot, new SplittableRandom(n));
+            SnakeSimulation actual = new SnakeSimulation(actualPilot, new SplittableRandom(n));
+
+            for (int step = 0; step < 3000 && expected.isInGame(); step++) {
+                expected.step();
+                actual.step();
+                String at = "game " + n + " step " + step;
+
+                assertEquals(expected.isInGame(), actual.isInGame(), at);
+                assertEquals(expected.getDots(), actual.getDots(), at);
+                assertEquals(expected.getFitness(), actual.getFitness(), at);
+                if (!expected.isInGame()) {
+                    break;
+                }
+                for (int z = 0; z < expected.getDots(); z++) {
+                    assertEquals(expected.getX(z), actual.getX(z), at + " dot " + z);
+                    assertEquals(expected.getY(z), actual.getY(z), at + " dot " + z);
+                }
+                //Includes the distance ahead, which the grid answers without moving the body
+                assertArrayEquals(expectedPilot.getLast(), actualPilot.getLast(), at);
+            }
+            longest = Math.max(longest, expected.getDots());
+        }
+        assertTrue(longest > 15, "the snakes never grew, longest " + longest);
+    }
+}
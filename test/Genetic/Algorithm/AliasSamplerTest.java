@@ -0,0 +1,43 @@
+package Genetic.Algorithm;
+
+import Help.Helper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AliasSamplerTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void indexesAreDrawnInProportionToTheirWeight() {
+        double[] frequencies = frequencies(new double[]{0, 1, 0, 3, 0, 6});
+
+        assertEquals(0, frequencies[0]);
+        assertEquals(0, frequencies[2]);
+        assertEquals(0, frequencies[4]);
+        assertEquals(0.1, frequencies[1], 0.01);
+        assertEquals(0.3, frequencies[3], 0.01);
+        assertEquals(0.6, frequencies[5], 0.01);
+    }
+
+    @Test
+    void equalWeightsAreDrawnUniformly() {
+        for (double weight : new double[]{2.5, 0}) {
+            double[] frequencies = frequencies(new double[]{weight, weight, weight, weight, weight});
+            for (double frequency : frequencies) {
+                assertEquals(0.2, frequency, 0.01, "weight " + weight);
+            }
+        }
+    }
+
+    private static double[] frequencies(double[] weights) {
+        Helper.setSeed(17);
+        AliasSampler sampler = new AliasSampler(weights);
+        double[] frequencies = new double[weights.length];
+        for (int i = 0; i < SAMPLES; i++) {
+            frequencies[sampler.sample()] += 1.0 / SAMPLES;
+        }
+        return frequencies;
+    }
+}
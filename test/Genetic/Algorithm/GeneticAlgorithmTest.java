@@ -0,0 +1,78 @@
+package Genetic.Algorithm;
+
+import Help.Helper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneticAlgorithmTest {
+
+    private final int tournamentSize = GeneSettings.TOURNAMENT_SIZE;
+    private final double tournamentPressure = GeneSettings.TOURNAMENT_PRESSURE;
+
+    @AfterEach
+    void restoreSettings() {
+        GeneSettings.RANK_SCALING = false;
+        GeneSettings.TOURNAMENT_SIZE = tournamentSize;
+        GeneSettings.TOURNAMENT_PRESSURE = tournamentPressure;
+    }
+
+    @Test
+    void rankScalingKeepsTheRealFitness() {
+        GeneSettings.RANK_SCALING = true;
+        Helper.setSeed(3);
+        GeneticAlgorithm genetics = new GeneticAlgorithm(20, 10, 0.1, 0.7);
+        List<Genome> population = genetics.getPopulation();
+        for (int i = 0; i < population.size(); i++) {
+            population.get(i).setFitness(100 + 7 * i);
+        }
+
+        List<Genome> next = genetics.epoch(population, false);
+
+        for (int i = 0; i < population.size(); i++) {
+            assertEquals(100 + 7 * i, population.get(i).getFitness());
+        }
+        //The elites come first and are expected to score what they scored, not their rank
+        assertEquals(100 + 7 * 19, next.get(0).getExpectedFitness());
+    }
+
+    @Test
+    void fullPressureTournamentsPickTheFittestOfDisjointContestants() {
+        int k = 4;
+        int populationSize = 20;
+        GeneSettings.TOURNAMENT_SIZE = k;
+        GeneSettings.TOURNAMENT_PRESSURE = 1;
+
+        for (long seed = 0; seed < 20; seed++) {
+            Helper.setSeed(seed);
+            GeneticAlgorithm genetics = new GeneticAlgorithm(populationSize, 3, 0.1, 0.7);
+            List<Genome> population = genetics.getPopulation();
+            //Fitness i is the rank of genome i
+            for (int i = 0; i < populationSize; i++) {
+                population.get(i).setFitness(i);
+            }
+
+            List<Genome> winners = genetics.tournament();
+
+            //One pass of populationSize / k tournaments splits the population into groups of k. If every winner is
+            //the fittest of its group, the j-th weakest winner of a pass beats all genomes of j + 1 groups.
+            int tournaments = populationSize / k;
+            for (int from = 0; from + tournaments <= winners.size(); from += tournaments) {
+                double[] pass = new double[tournaments];
+                for (int j = 0; j < tournaments; j++) {
+                    pass[j] = winners.get(from + j).getFitness();
+                }
+                Arrays.sort(pass);
+                for (int j = 0; j < tournaments; j++) {
+                    assertTrue(pass[j] >= k * (j + 1) - 1, "seed " + seed + " winners " + Arrays.toString(pass));
+                }
+                assertEquals(populationSize - 1, pass[tournaments - 1]);
+            }
+        }
+    }
+}
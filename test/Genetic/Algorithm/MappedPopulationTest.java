@@ -0,0 +1,94 @@
+package Genetic.Algorithm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedPopulationTest {
+
+    // Offset of the generation in the second commit block of the header
+    private static final int SECOND_COMMIT_GENERATION = 64 + 36 + 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void addedGenomesKeepTheirExpectedFitness() throws IOException {
+        try (MappedPopulation population = MappedPopulation.open(directory.resolve("test.population"), 4, 3)) {
+            Genome child = new Genome(new double[]{0.5, -0.25, 1}, 7);
+            child.setExpectedFitness(42);
+            population.add(child);
+
+            MappedPopulation next = population.next();
+            next.add(population.get(0));
+
+            for (Genome genome : new Genome[]{population.get(0), next.get(0)}) {
+                assertArrayEquals(child.getWeights(), genome.getWeights());
+                assertEquals(7, genome.getFitness());
+                assertEquals(42, genome.getExpectedFitness());
+            }
+        }
+    }
+
+    @Test
+    void reopeningFallsBackToTheLastIntactCommit() throws IOException {
+        Path file = directory.resolve("test.population");
+        try (MappedPopulation first = MappedPopulation.open(file, 4, 3)) {
+            first.add(new Genome(new double[]{1, 2, 3}, 1));
+            first.commit(1, 11);
+            MappedPopulation second = first.next();
+            second.add(new Genome(new double[]{4, 5, 6}, 2));
+            second.add(new Genome(new double[]{7, 8, 9}, 3));
+            second.commit(2, 11);
+        }
+
+        try (MappedPopulation reopened = MappedPopulation.open(file, 4, 3)) {
+            assertEquals(2, reopened.getGeneration());
+            assertEquals(2, reopened.size());
+            assertArrayEquals(new double[]{7, 8, 9}, reopened.get(1).getWeights());
+        }
+
+        //A crash in the middle of the second commit leaves a block that does not match its checksum
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{3}), SECOND_COMMIT_GENERATION);
+        }
+        try (MappedPopulation reopened = MappedPopulation.open(file, 4, 3)) {
+            assertEquals(1, reopened.getGeneration());
+            assertEquals(11, reopened.getSeed());
+            assertEquals(1, reopened.size());
+            assertArrayEquals(new double[]{1, 2, 3}, reopened.get(0).getWeights());
+        }
+    }
+
+    @Test
+    void recordsAreSerializedAsGenomesOnTheHeap() throws IOException, ClassNotFoundException {
+        try (MappedPopulation population = MappedPopulation.open(directory.resolve("test.population"), 2, 3)) {
+            population.add(new Genome(new double[]{0.5, -0.25, 1}, 7));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(population.get(0));
+            }
+            Genome copy;
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                copy = (Genome) in.readObject();
+            }
+
+            assertEquals(Genome.class, copy.getClass());
+            assertArrayEquals(new double[]{0.5, -0.25, 1}, copy.getWeights());
+            assertEquals(7, copy.getFitness());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package Help;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HelperTest {
+
+    @Test
+    void deriveSeedIsStable() {
+        assertEquals(Helper.deriveSeed(7, 1), Helper.deriveSeed(7, 1));
+    }
+
+    @Test
+    void neighbouringRunsDoNotShareStreams() {
+        Set<Long> seeds = new HashSet<>();
+        for (long seed = 0; seed < 100; seed++) {
+            for (long stream = 0; stream < 100; stream++) {
+                assertTrue(seeds.add(Helper.deriveSeed(seed, stream)), "seed " + seed + " stream " + stream);
+            }
+        }
+    }
+}
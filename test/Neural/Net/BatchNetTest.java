@@ -0,0 +1,69 @@
+package Neural.Net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Every net of a batch must compute exactly the outputs of a {@link NeuralNet} with the same weights, bit for bit
+ */
+class BatchNetTest {
+
+    private static final int NUM_OUTPUTS = 4;
+
+    @Test
+    void netsOfABatchMatchSingleNets() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int hiddenLayers = 1; hiddenLayers <= 3; hiddenLayers++) {
+            for (int inputs : new int[]{6, 24}) {
+                for (int neurons : new int[]{inputs, 33}) {
+                    for (int batchSize : new int[]{1, 5, 64}) {
+                        check(random, inputs, hiddenLayers, neurons, batchSize);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void check(SplittableRandom random, int inputs, int hiddenLayers, int neurons, int batchSize) {
+        BatchNet batch = new BatchNet(inputs, NUM_OUTPUTS, hiddenLayers, neurons, batchSize);
+        NeuralNet[] nets = new NeuralNet[batchSize];
+        double[][] in = new double[batchSize][inputs];
+        double[][] out = new double[batchSize][NUM_OUTPUTS];
+
+        for (int b = 0; b < batchSize; b++) {
+            nets[b] = new NeuralNet(inputs, NUM_OUTPUTS, hiddenLayers, neurons);
+            double[] weights = new double[nets[b].getNumberOfWeights()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = random.nextDouble(-3, 3);
+            }
+            nets[b].putWeights(weights);
+            batch.putWeights(b, weights);
+        }
+
+        for (int round = 0; round < 20; round++) {
+            for (int b = 0; b < batchSize; b++) {
+                for (int j = 0; j < inputs; j++) {
+                    in[b][j] = random.nextDouble(-1, 1);
+                    batch.getInputs()[j * batchSize + b] = in[b][j];
+                }
+            }
+            //The buffer form first, the array form overwrites the same inputs with the same values
+            batch.update();
+            double[] buffered = batch.getOutputs().clone();
+            batch.update(in, out);
+
+            for (int b = 0; b < batchSize; b++) {
+                double[] expected = new double[NUM_OUTPUTS];
+                nets[b].update(in[b], expected);
+                String shape = hiddenLayers + "x" + neurons + " net " + b + " of " + batchSize;
+                assertArrayEquals(expected, out[b], shape);
+                for (int n = 0; n < NUM_OUTPUTS; n++) {
+                    assertArrayEquals(new double[]{expected[n]}, new double[]{buffered[n * batchSize + b]}, shape);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package Training;
+
+import Game.SensorSettings;
+import Game.SnakeSimulation;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Games stepped side by side in a batch must end exactly like the same games played one after another
+ */
+class BatchEvaluatorTest {
+
+    private static final int POPULATION_SIZE = 200;
+    private static final int MAX_ACTIONS = 500;
+
+    private final boolean rays = SensorSettings.RAYS;
+
+    @AfterEach
+    void restoreSensors() {
+        SensorSettings.RAYS = rays;
+    }
+
+    @Test
+    void batchesScoreLikeSequentialGames() {
+        for (boolean rays : new boolean[]{false, true}) {
+            SensorSettings.RAYS = rays;
+            int inputs = SensorSettings.getNumInputs();
+            NeuralNet shape = new NeuralNet(inputs, 4, 2, Math.max(8, inputs));
+
+            for (int batchSize : new int[]{1, 7, 64, 500}) {
+                for (int stallActions : new int[]{0, 50}) {
+                    List<Genome> sequential = population(shape.getNumberOfWeights());
+                    List<Genome> batched = Fixtures.copy(sequential);
+
+                    Helper.setSeed(5);
+                    new SequentialEvaluator(shape, brain -> new SnakeSimulation(brain).play(MAX_ACTIONS, stallActions)).evaluate(sequential);
+                    long sequentialNext = Helper.random().nextLong();
+                    Helper.setSeed(5);
+                    new BatchEvaluator(shape, batchSize, MAX_ACTIONS, stallActions).evaluate(batched);
+                    long batchedNext = Helper.random().nextLong();
+
+                    String setup = "rays " + rays + " batch " + batchSize + " stall " + stallActions;
+                    Set<Double> scores = new HashSet<>();
+                    for (int i = 0; i < POPULATION_SIZE; i++) {
+                        assertEquals(sequential.get(i).getFitness(), batched.get(i).getFitness(), setup + " genome " + i);
+                        scores.add(sequential.get(i).getFitness());
+                    }
+                    //Both leave the generator of the calling thread in the same state
+                    assertEquals(sequentialNext, batchedNext, setup);
+                    assertTrue(scores.size() > 5, setup + " the games hardly differ");
+                }
+            }
+        }
+    }
+
+    private static List<Genome> population(int chromoLength) {
+        Helper.setSeed(11);
+        List<Genome> population = new ArrayList<>(POPULATION_SIZE);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            Genome genome = new Genome(chromoLength);
+            for (int j = 0; j < chromoLength; j++) {
+                genome.setWeight(j, 3 * Helper.randomClamped());
+            }
+            population.add(genome);
+        }
+        return population;
+    }
+}
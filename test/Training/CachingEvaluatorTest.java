@@ -0,0 +1,40 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingEvaluatorTest {
+
+    private static final int POPULATION_SIZE = 12;
+
+    @Test
+    void hitsDoNotChangeTheGamesOfTheOtherGenomes() {
+        List<Genome> population = Fixtures.population(5, POPULATION_SIZE);
+        Evaluator games = new SequentialEvaluator(Fixtures.createNet(), Fixtures::play);
+
+        List<Genome> uncached = Fixtures.copy(population);
+        Helper.setSeed(11);
+        games.evaluate(uncached);
+
+        //Every other genome is known to the cache, with a fitness no game gives
+        FitnessCache cache = new FitnessCache(POPULATION_SIZE, false);
+        for (int i = 0; i < POPULATION_SIZE; i += 2) {
+            Genome known = new Genome(population.get(i).getWeights(), -1);
+            cache.record(FitnessCache.hash(known), known);
+        }
+        List<Genome> cached = Fixtures.copy(population);
+        Helper.setSeed(11);
+        new CachingEvaluator(games, cache).evaluate(cached);
+
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            assertEquals(i % 2 == 0 ? -1 : uncached.get(i).getFitness(), cached.get(i).getFitness());
+        }
+        assertEquals(POPULATION_SIZE / 2, cache.getHits());
+        assertEquals(POPULATION_SIZE, cache.size());
+    }
+}
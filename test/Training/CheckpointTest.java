@@ -0,0 +1,134 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointTest {
+
+    private static final int POPULATION_SIZE = 8;
+    private static final int CHROMO_LENGTH = 5;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fullCheckpointReadsBackUnchanged() throws IOException {
+        Path file = directory.resolve("test.data");
+        GeneticAlgorithm saved = genetics(3, 41L);
+        new Checkpoint(saved, 6, 4, 2, 8).write(file);
+
+        Checkpoint read = Checkpoint.read(file);
+
+        assertTrue(read.hasTopology(6, 4, 2, 8));
+        assertSamePopulation(saved, read.getGenetics());
+    }
+
+    @Test
+    void deltaIsAppliedOnTopOfItsFullCheckpoint() throws IOException {
+        Path file = directory.resolve("test.data");
+        Checkpoint base = new Checkpoint(genetics(3, 41L), 6, 4, 2, 8);
+        base.write(file);
+
+        //Half of the next generation are genomes of the base, with a new fitness, the rest are new
+        List<Genome> population = new ArrayList<>(POPULATION_SIZE);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            Genome genome = i % 2 == 0 ? new Genome(base.getGenetics().getPopulation().get(POPULATION_SIZE - 1 - i)) : random();
+            genome.setFitness(100 + i);
+            population.add(genome);
+        }
+        GeneticAlgorithm next = new GeneticAlgorithm(population, 0.5, 0.7, 4);
+        next.setSeed(41L);
+        next.setStats(800, 107, 100, 103.5, 7);
+        new Checkpoint(next, 6, 4, 2, 8).writeDelta(file, base, indexes(base.getGenetics().getPopulation()));
+
+        assertSamePopulation(next, Checkpoint.read(file).getGenetics());
+
+        //A new full checkpoint makes the delta stale
+        GeneticAlgorithm later = genetics(9, 41L);
+        new Checkpoint(later, 6, 4, 2, 8).write(file);
+        assertSamePopulation(later, Checkpoint.read(file).getGenetics());
+    }
+
+    @Test
+    void otherMagicOrVersionIsRejected() throws IOException {
+        Path file = directory.resolve("test.data");
+        new Checkpoint(genetics(3, 41L), 6, 4, 2, 8).write(file);
+        overwriteInt(file, 4, Checkpoint.VERSION + 1);
+        IOException version = assertThrows(IOException.class, () -> Checkpoint.read(file));
+        assertTrue(version.getMessage().contains("version"));
+
+        new Checkpoint(genetics(3, 41L), 6, 4, 2, 8).write(file);
+        overwriteInt(file, 0, Checkpoint.DELTA_MAGIC);
+        assertThrows(IOException.class, () -> Checkpoint.read(file));
+    }
+
+    private static GeneticAlgorithm genetics(int generation, long seed) {
+        Helper.setSeed(generation);
+        List<Genome> population = new ArrayList<>(POPULATION_SIZE);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            population.add(random());
+        }
+        GeneticAlgorithm genetics = new GeneticAlgorithm(population, 0.5, 0.7, generation);
+        genetics.setSeed(seed);
+        genetics.setStats(28, 7, 0, 3.5, 7);
+        return genetics;
+    }
+
+    private static Genome random() {
+        double[] weights = new double[CHROMO_LENGTH];
+        for (int i = 0; i < CHROMO_LENGTH; i++) {
+            weights[i] = Helper.randomClamped();
+        }
+        return new Genome(weights, Helper.randomInt(0, 50));
+    }
+
+    private static Map<Genome, Integer> indexes(List<Genome> population) {
+        Map<Genome, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < population.size(); i++) {
+            indexes.put(population.get(i), i);
+        }
+        return indexes;
+    }
+
+    private static void overwriteInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), position);
+        }
+    }
+
+    static void assertSamePopulation(GeneticAlgorithm expected, GeneticAlgorithm actual) {
+        assertEquals(expected.getGeneration(), actual.getGeneration());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getMutationRate(), actual.getMutationRate());
+        assertEquals(expected.getCrossRate(), actual.getCrossRate());
+        assertEquals(expected.getTotalFitness(), actual.getTotalFitness());
+        assertEquals(expected.getBestFitness(), actual.getBestFitness());
+        assertEquals(expected.getWorstFitness(), actual.getWorstFitness());
+        assertEquals(expected.getAverageFitness(), actual.getAverageFitness());
+        assertEquals(expected.getFittestGenome(), actual.getFittestGenome());
+        assertEquals(expected.getPopulation().size(), actual.getPopulation().size());
+        for (int i = 0; i < expected.getPopulation().size(); i++) {
+            assertArrayEquals(expected.getPopulation().get(i).getWeights(), actual.getPopulation().get(i).getWeights());
+            assertEquals(expected.getPopulation().get(i).getFitness(), actual.getPopulation().get(i).getFitness());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointWriterTest {
+
+    private static final int SNAPSHOTS = 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotsWaitingForTheDiskAreReplacedByTheNewest() throws IOException {
+        Path file = directory.resolve("test.data");
+        //Large enough that the first write is still running while the other snapshots come in
+        Helper.setSeed(1);
+        List<Genome> population = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double[] weights = new double[200];
+            for (int j = 0; j < weights.length; j++) {
+                weights[j] = Helper.randomClamped();
+            }
+            population.add(new Genome(weights, i));
+        }
+
+        CheckpointWriter writer = new CheckpointWriter(file, 3, 6, 4, 2, 8);
+        GeneticAlgorithm last = null;
+        for (int generation = 1; generation <= SNAPSHOTS; generation++) {
+            //Every generation moves the genomes by one, so only the newest snapshot has this order
+            List<Genome> shifted = new ArrayList<>(population.subList(generation, population.size()));
+            shifted.addAll(population.subList(0, generation));
+            last = new GeneticAlgorithm(shifted, 0.5, 0.7, generation);
+            last.setSeed(7);
+            writer.submit(last);
+        }
+        writer.close();
+
+        assertTrue(writer.getCoalesced() > 0);
+        assertTrue(writer.getCoalesced() < SNAPSHOTS);
+        CheckpointTest.assertSamePopulation(last, Checkpoint.read(file).getGenetics());
+    }
+}
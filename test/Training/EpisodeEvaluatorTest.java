@@ -0,0 +1,81 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EpisodeEvaluatorTest {
+
+    private static final int POPULATION_SIZE = 12;
+    private static final int EPISODES = 3;
+
+    @Test
+    void fitnessOfAGenomeDoesNotDependOnTheOthers() {
+        List<Genome> population = Fixtures.population(5, POPULATION_SIZE);
+        Evaluator evaluator = new EpisodeEvaluator(new SequentialEvaluator(Fixtures.createNet(), Fixtures::play), EPISODES);
+
+        evaluator.evaluate(population, Fixtures.generators(9, POPULATION_SIZE));
+        double[] all = new double[POPULATION_SIZE];
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            all[i] = population.get(i).getFitness();
+        }
+
+        //Every other genome, as if the rest had come from a cache
+        List<Genome> some = new ArrayList<>();
+        List<SplittableGenerator> randoms = new ArrayList<>();
+        List<SplittableGenerator> generators = Fixtures.generators(9, POPULATION_SIZE);
+        for (int i = 1; i < POPULATION_SIZE; i += 2) {
+            some.add(new Genome(population.get(i).getWeights(), 0));
+            randoms.add(generators.get(i));
+        }
+        evaluator.evaluate(some, randoms);
+
+        for (int i = 0; i < some.size(); i++) {
+            assertEquals(all[2 * i + 1], some.get(i).getFitness());
+        }
+    }
+
+    @Test
+    void racingKeepsTheEliteMeansAndRanksThePrunedGenomesBelow() {
+        int elites = 2;
+        //Genome i scores about 10 * i per game, give or take a few points
+        int[] games = new int[1];
+        Evaluator game = (population, randoms) -> {
+            for (int i = 0; i < population.size(); i++) {
+                population.get(i).setFitness(10 * population.get(i).getWeight(0) + randoms.get(i).nextInt(5));
+                games[0]++;
+            }
+        };
+        List<Genome> full = players();
+        new EpisodeEvaluator(game, EPISODES).evaluate(full, Fixtures.generators(9, POPULATION_SIZE));
+        games[0] = 0;
+        List<Genome> raced = players();
+        EpisodeEvaluator racing = new EpisodeEvaluator(game, EPISODES, elites, 1000, 5);
+        racing.evaluate(raced, Fixtures.generators(9, POPULATION_SIZE));
+
+        assertTrue(racing.getPruned() > 0);
+        assertEquals(POPULATION_SIZE * EPISODES - racing.getPruned(), games[0]);
+        double cutoff = Double.POSITIVE_INFINITY;
+        for (int i = POPULATION_SIZE - elites; i < POPULATION_SIZE; i++) {
+            assertEquals(full.get(i).getFitness(), raced.get(i).getFitness());
+            cutoff = Math.min(cutoff, raced.get(i).getFitness());
+        }
+        for (int i = 0; i < POPULATION_SIZE - elites; i++) {
+            assertTrue(raced.get(i).getFitness() < cutoff);
+        }
+    }
+
+    private static List<Genome> players() {
+        List<Genome> players = new ArrayList<>(POPULATION_SIZE);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            players.add(new Genome(new double[]{i}, 0));
+        }
+        return players;
+    }
+}
@@ -0,0 +1,72 @@
+package Training;
+
+import Game.SensorSettings;
+import Game.SnakeSimulation;
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Nets, populations and games shared by the evaluator tests
+ */
+final class Fixtures {
+
+    static final int MAX_ACTIONS = 500;
+    static final int STALL_ACTIONS = 200;
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return small net for the current sensors
+     */
+    static NeuralNet createNet() {
+        int inputs = SensorSettings.getNumInputs();
+        return new NeuralNet(inputs, 4, 1, inputs);
+    }
+
+    /**
+     * @return random population for nets of {@link #createNet()}, the same for the same seed
+     */
+    static List<Genome> population(long seed, int size) {
+        int chromoLength = createNet().getNumberOfWeights();
+        Helper.setSeed(seed);
+        return new GeneticAlgorithm(size, chromoLength, 0.1, 0.7).getPopulation();
+    }
+
+    /**
+     * Plays one headless game with random numbers from the generator of the calling thread
+     */
+    static int play(NeuralNet brain) {
+        return new SnakeSimulation(brain).play(MAX_ACTIONS, STALL_ACTIONS);
+    }
+
+    /**
+     * @return one generator per genome, split off a generator seeded with seed
+     */
+    static List<SplittableGenerator> generators(long seed, int count) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<SplittableGenerator> generators = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            generators.add(random.split());
+        }
+        return generators;
+    }
+
+    /**
+     * @return deep copies of the genomes with their weights and fitness
+     */
+    static List<Genome> copy(List<Genome> population) {
+        List<Genome> copy = new ArrayList<>(population.size());
+        for (Genome genome : population) {
+            copy.add(new Genome(genome));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,76 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IslandModelTest {
+
+    private static final int POPULATION_SIZE = 10;
+    private static final int CHROMO_LENGTH = 6;
+    private static final int GENERATIONS = 4;
+    private static final int MIGRANTS = 2;
+
+    @Test
+    void migrantsArriveInThePopulationOfTheNeighbour() {
+        //Island i starts with weights between 10 * i and 10 * i + 1, without mutation no weight leaves that range
+        AtomicInteger created = new AtomicInteger();
+        ThreadLocal<Integer> island = new ThreadLocal<>();
+        AtomicBoolean[] foreign = {new AtomicBoolean(), new AtomicBoolean()};
+        IslandModel model = new IslandModel(2, IslandModel.Topology.RING, 1, MIGRANTS,
+                () -> {
+                    island.set(created.getAndIncrement());
+                    List<Genome> population = new ArrayList<>(POPULATION_SIZE);
+                    for (int i = 0; i < POPULATION_SIZE; i++) {
+                        double[] weights = new double[CHROMO_LENGTH];
+                        for (int j = 0; j < CHROMO_LENGTH; j++) {
+                            weights[j] = 10 * island.get() + Helper.randomDouble();
+                        }
+                        population.add(new Genome(weights, 0));
+                    }
+                    return new GeneticAlgorithm(population, 0, 0.7, 0);
+                },
+                () -> {
+                    int home = island.get();
+                    return (population, randoms) -> {
+                        for (Genome genome : population) {
+                            genome.setFitness(genome.getWeight(0) % 10);
+                            for (int j = 0; j < genome.size(); j++) {
+                                if ((int) (genome.getWeight(j) / 10) != home) {
+                                    foreign[home].set(true);
+                                }
+                            }
+                        }
+                    };
+                });
+        //Both islands finish a generation before either starts the next, so the migrants of one generation arrive in the next
+        CyclicBarrier generation = new CyclicBarrier(2);
+        model.setListener((i, genetics) -> {
+            try {
+                generation.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        model.run(3, GENERATIONS);
+
+        assertTrue(foreign[0].get());
+        assertTrue(foreign[1].get());
+        assertEquals(2L * GENERATIONS * MIGRANTS, model.getMigrations());
+        assertEquals(GENERATIONS, model.getIsland(1).getGeneration());
+    }
+}
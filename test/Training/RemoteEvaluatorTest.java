@@ -0,0 +1,63 @@
+package Training;
+
+import Game.SensorSettings;
+import Genetic.Algorithm.Genome;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RemoteEvaluatorTest {
+
+    private static final int POPULATION_SIZE = 12;
+
+    @Test
+    void workersScoreLikeTheSequentialEvaluatorAndTheBatchOfASilentWorkerIsSentAgain() throws IOException {
+        int inputs = SensorSettings.getNumInputs();
+        List<Genome> population = Fixtures.population(5, POPULATION_SIZE);
+
+        //A remote genome plays with a generator seeded by the first number of its own generator
+        List<SplittableGenerator> seeded = new ArrayList<>(POPULATION_SIZE);
+        for (SplittableGenerator random : Fixtures.generators(9, POPULATION_SIZE)) {
+            seeded.add(new SplittableRandom(random.nextLong()));
+        }
+        List<Genome> expected = Fixtures.copy(population);
+        new SequentialEvaluator(Fixtures.createNet(), Fixtures::play).evaluate(expected, seeded);
+
+        RemoteEvaluator coordinator = new RemoteEvaluator(0, 3, 500, inputs, 4, 1, inputs, Fixtures.MAX_ACTIONS, Fixtures.STALL_ACTIONS);
+        //Joins first, so it gets the first batch, and never answers
+        try (Socket silent = new Socket("localhost", coordinator.getPort())) {
+            assertNotNull(RemoteEvaluator.readFrame(new DataInputStream(new BufferedInputStream(silent.getInputStream()))));
+            for (int i = 0; i < 2; i++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        EvaluationWorker.run("localhost", coordinator.getPort(), 2);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                worker.setDaemon(true);
+                worker.start();
+            }
+
+            coordinator.evaluate(population, Fixtures.generators(9, POPULATION_SIZE));
+        } finally {
+            coordinator.shutdown();
+        }
+
+        assertEquals(1, coordinator.getRedispatched());
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            assertEquals(expected.get(i).getFitness(), population.get(i).getFitness());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package Training;
+
+import Genetic.Algorithm.GeneticAlgorithm;
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SteadyStateEvolutionTest {
+
+    private static final int POPULATION_SIZE = 10;
+    private static final int EVALUATIONS = 300;
+
+    @RepeatedTest(5)
+    void severalWorkersOnlyKeepAndBreedScoredGenomes() {
+        GeneticAlgorithm genetics = new CheckedGenetics();
+        SteadyStateEvolution evolution = new SteadyStateEvolution(genetics, 4, SteadyStateEvolutionTest::createNet,
+                SteadyStateEvolutionTest::play);
+        evolution.run(3, EVALUATIONS);
+
+        assertEquals(EVALUATIONS, evolution.getEvaluations());
+        assertTrue(evolution.getReplacements() > 0 && evolution.getReplacements() <= EVALUATIONS - POPULATION_SIZE);
+        for (Genome genome : genetics.getPopulation()) {
+            assertEquals(score(genome.getWeights()), genome.getFitness());
+        }
+    }
+
+    @Test
+    void oneWorkerRepeatsItsRun() {
+        List<Genome> first = run(7);
+        List<Genome> second = run(7);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            assertArrayEquals(first.get(i).getWeights(), second.get(i).getWeights());
+            assertEquals(first.get(i).getFitness(), second.get(i).getFitness());
+        }
+    }
+
+    private static List<Genome> run(long seed) {
+        Helper.setSeed(seed);
+        GeneticAlgorithm genetics = new CheckedGenetics();
+        new SteadyStateEvolution(genetics, 1, SteadyStateEvolutionTest::createNet, SteadyStateEvolutionTest::play).run(seed, EVALUATIONS);
+        return genetics.getPopulation();
+    }
+
+    private static NeuralNet createNet() {
+        return new NeuralNet(6, 4, 1, 6);
+    }
+
+    /**
+     * A game whose score only depends on the weights and that takes a few hundred microseconds, more for some nets,
+     * so the games end out of order
+     */
+    private static int play(NeuralNet net) {
+        double[] weights = new double[net.getNumberOfWeights()];
+        int i = 0;
+        for (double[] neuron : net.getWeights()) {
+            for (double weight : neuron) {
+                weights[i++] = weight;
+            }
+        }
+        int score = score(weights);
+        long end = System.nanoTime() + 100_000L * (1 + score % 5);
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+        return score;
+    }
+
+    private static int score(double[] weights) {
+        double sum = 0;
+        for (double weight : weights) {
+            sum += weight;
+        }
+        return 1 + (int) (100 * Math.abs(sum));
+    }
+
+    /**
+     * Fails the run if a parent is picked from genomes that were not scored yet
+     */
+    private static final class CheckedGenetics extends GeneticAlgorithm {
+
+        private CheckedGenetics() {
+            super(POPULATION_SIZE, createNet().getNumberOfWeights(), 0.3, 0.7);
+        }
+
+        @Override
+        public Genome breed(List<Genome> candidates) {
+            for (Genome candidate : candidates) {
+                assertEquals(score(candidate.getWeights()), candidate.getFitness(), "bred from an unscored genome");
+            }
+            return super.breed(candidates);
+        }
+    }
+}
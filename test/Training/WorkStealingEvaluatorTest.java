@@ -0,0 +1,83 @@
+package Training;
+
+import Genetic.Algorithm.Genome;
+import Help.Helper;
+import Neural.Net.NeuralNet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkStealingEvaluatorTest {
+
+    private static final int POPULATION_SIZE = 60;
+
+    @Test
+    void scoresLikeTheSequentialAndParallelEvaluators() {
+        List<Genome> sequential = Fixtures.population(5, POPULATION_SIZE);
+        List<Genome> parallel = Fixtures.copy(sequential);
+        List<Genome> stealing = Fixtures.copy(sequential);
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            //Expectations that reorder the games
+            stealing.get(i).setExpectedFitness(i * 7 % 11);
+        }
+
+        Evaluator single = new SequentialEvaluator(Fixtures.createNet(), Fixtures::play);
+        Evaluator threads = new ParallelEvaluator(4, false, Fixtures::createNet, Fixtures::play);
+        Evaluator workStealing = new WorkStealingEvaluator(4, Fixtures::createNet, Fixtures::play);
+        try {
+            Helper.setSeed(3);
+            single.evaluate(sequential);
+            Helper.setSeed(3);
+            threads.evaluate(parallel);
+            Helper.setSeed(3);
+            workStealing.evaluate(stealing);
+        } finally {
+            threads.shutdown();
+            workStealing.shutdown();
+        }
+
+        for (int i = 0; i < POPULATION_SIZE; i++) {
+            assertEquals(sequential.get(i).getFitness(), parallel.get(i).getFitness());
+            assertEquals(sequential.get(i).getFitness(), stealing.get(i).getFitness());
+        }
+    }
+
+    @Test
+    void aWorkerStealsFromTheDequeOfALongGame() {
+        //The longest expected game takes 200 ms, all others return at once, so the second worker steals the rest of the first deque
+        WorkStealingEvaluator evaluator = new WorkStealingEvaluator(2, () -> new NeuralNet(2, 1, 1, 2), net -> {
+            if (net.getWeights().get(0)[0] == 100) {
+                long end = System.nanoTime() + 200_000_000L;
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+            }
+            return 1;
+        });
+        int chromoLength = new NeuralNet(2, 1, 1, 2).getNumberOfWeights();
+        List<Genome> population = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Genome genome = new Genome(chromoLength);
+            genome.setWeight(0, i == 0 ? 100 : i);
+            genome.setExpectedFitness(8 - i);
+            population.add(genome);
+        }
+        try {
+            evaluator.evaluate(population);
+        } finally {
+            evaluator.shutdown();
+        }
+
+        for (Genome genome : population) {
+            assertEquals(1, genome.getFitness());
+        }
+        assertTrue(evaluator.getSteals(0) + evaluator.getSteals(1) > 0);
+        assertTrue(evaluator.getBusyNanos(0) + evaluator.getBusyNanos(1) >= 200_000_000L);
+        assertTrue(evaluator.getIdleNanos(0) + evaluator.getIdleNanos(1) > 100_000_000L);
+        assertTrue(evaluator.getUtilization() > 0 && evaluator.getUtilization() < 0.9);
+    }
+}